@@ -2,7 +2,7 @@ package agent;
 
 import org.objectweb.asm.*;
 import org.objectweb.asm.commons.AdviceAdapter;
-import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.commons.AnalyzerAdapter;
 import org.objectweb.asm.tree.MethodNode;
 
 import java.io.File;
@@ -11,8 +11,11 @@ import java.io.IOException;
 import java.lang.instrument.ClassFileTransformer;
 import java.lang.instrument.IllegalClassFormatException;
 import java.lang.instrument.Instrumentation;
+import java.lang.instrument.UnmodifiableClassException;
 import java.security.ProtectionDomain;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 import static org.objectweb.asm.Opcodes.ASM6;
 
@@ -21,6 +24,18 @@ public class Agent {
   public static final String ARGS_DELIM = "###";
   public static final String ARGS_PACKAGE_DELIM = ",";
 
+  public static final String DETACH = "detach";
+
+  // classes and methods to instrument, from the package list
+  static ClassFilter filter;
+
+  /* set once installed, attached while it is registered. Each
+     attach gets its own Instrumentation, the transformer stays
+     registered with the first one */
+  private static Instrumentation instrumentation;
+  private static ClassFileTransformer transformer;
+  private static boolean attached;
+
 	/**
 	 * This is called before the standard main
 	 * method and initializes a ClassFileTransformer
@@ -28,14 +43,64 @@ public class Agent {
 	 * class file as it is requested by the JVM. 
 	 *
 	 * @param agentArgs  this should have the following format :
-   *                   "$OUT_DIR###$PACKAGE,...$PACKAGE"
+   *                   "$OUT_DIR###$PACKAGE,...$PACKAGE[###$KEY=$VALUE,...]"
 	 * @param inst       provides access/control of JVM
 	 */
 	public static void premain(String agentArgs, Instrumentation inst) {
+    install(agentArgs, inst);
+  }
+
+  /**
+   * This is called when the agent is loaded into a
+   *  running JVM (see Attach). It installs the agent
+   *  like premain() and retransforms the matching
+   *  classes that are already loaded. With the args
+   *  "detach", it removes the transformer and restores
+   *  the original bytes of those classes.
+   *
+   * @param agentArgs  the same format as for premain(), or "detach"
+   * @param inst       provides access/control of JVM
+   */
+  public static synchronized void agentmain(String agentArgs, Instrumentation inst) {
+    if (DETACH.equals(agentArgs == null ? null : agentArgs.trim())) {
+      if (transformer == null || !attached) {
+        System.err.println("Error: Agent is not attached...");
+        return;
+      }
+      instrumentation.removeTransformer(transformer);
+      attached = false;
+      retransformLoaded(instrumentation);
+      return;
+    }
+
+    if (transformer == null) {
+      install(agentArgs, inst);
+    } else if (!attached) {
+      // outputs and options of the first attach are kept
+      System.err.println("Warning: Agent was attached before, reusing its args...");
+      instrumentation.addTransformer(transformer, true);
+      attached = true;
+    } else {
+      System.err.println("Error: Agent is already attached...");
+      return;
+    }
 
-		String temp[] = agentArgs.split(ARGS_DELIM);
+    if (transformer != null) {
+      retransformLoaded(instrumentation);
+    }
+  }
+
+  /**
+   * Set up the outputs and options, then register the
+   *  transformer that instruments classes as they load.
+   *
+   * @param agentArgs  see premain()
+   * @param inst       provides access/control of JVM
+   */
+  private static void install(String agentArgs, Instrumentation inst) {
+
+		String temp[] = (agentArgs == null ? "" : agentArgs).split(ARGS_DELIM);
 		final String outDir = temp[0];
-		final String args[];
 
 		if (outDir == null || outDir.isEmpty()) {
       System.err.println("Error: Missing output directory...");
@@ -43,16 +108,55 @@ public class Agent {
     }
 
     ProfileLogger.APP_DIR = outDir;
+    Runtime.getRuntime().addShutdownHook(new Thread() {
+      @Override
+      public void run() {
+        ProfileLogger.shutdown();
+        MethodCounters.shutdown(outDir);
+        TraceDictionary.close();
+      }
+    });
 
 		try {
-      args = temp[1].split(ARGS_PACKAGE_DELIM);
+      filter = new ClassFilter(temp[1].split(ARGS_PACKAGE_DELIM));
     } catch (IndexOutOfBoundsException e) {
       System.err.println("Error: Missing package arg(s)...");
       return;
     }
 
+    if (temp.length > 2) {
+      AgentConfig.parse(temp[2]);
+    }
 
-		inst.addTransformer(new ClassFileTransformer() {
+    if (AgentConfig.isAggregating()) {
+      MethodStats.start(outDir);
+    } else if (AgentConfig.isCompact()) {
+      try {
+        TraceDictionary.open(outDir);
+      } catch (IOException e) {
+        System.err.println("Error: Could not create trace dictionary, " + e.getMessage());
+        return;
+      }
+    }
+
+    if (AgentConfig.adaptive) {
+      HotMethods.start(outDir);
+    }
+
+    Tracing.set(AgentConfig.tracing);
+    if (AgentConfig.jmx) {
+      Tracing.registerMBean();
+    }
+
+    if (AgentConfig.cacheDir != null) {
+      try {
+        ClassCache.open(AgentConfig.cacheDir);
+      } catch (IOException e) {
+        System.err.println("Error: Could not open class cache, " + e.getMessage());
+      }
+    }
+
+		transformer = new ClassFileTransformer() {
 
 			@Override
 			public byte[] transform(
@@ -65,68 +169,218 @@ public class Agent {
 
 			  byte[] modifiedClass = bytes;
 
-        for (String pack : args) {
-          if (!className.startsWith("java/")
-              && !className.startsWith("agent/")
-              && className.startsWith(pack + "/")) {
-
-            // use asm.tree to get local variable metadata (name, index, type)
-            ClassReader preClassReader = new ClassReader(modifiedClass);
-            ClassWriter preClassWriter = new ClassWriter(0);
-            PreClassNodeAdapter preClassNodeAdapter =
-                new PreClassNodeAdapter(preClassWriter, className);
-            preClassReader.accept(preClassNodeAdapter, 0);
-            modifiedClass = preClassWriter.toByteArray();
+        if (isInstrumented(className)) {
+
+          // reuse the instrumented bytes of a previous run
+          String cacheKey = null;
+          ClassCache.Entry cacheEntry = null;
+          if (ClassCache.isEnabled() && !HotMethods.hasDeinstrumented(className)) {
+            cacheKey = ClassCache.key(modifiedClass);
+            byte[] cachedClass = ClassCache.load(cacheKey);
+            if (cachedClass != null) {
+              TraceDictionary.flush();
+              return cachedClass;
+            }
+            cacheEntry = new ClassCache.Entry();
+          }
 
-            // inject code to record method-calls & variable accessing
+          // inject code to record method-calls & variable accessing
+          try {
+            // ASM throws for class files newer than it supports
             ClassReader classReader = new ClassReader(modifiedClass);
-            ClassWriter classWriter =
-                new ClassWriter(ClassWriter.COMPUTE_FRAMES | ClassWriter.COMPUTE_MAXS);
-            ClassAdapter classAdapter = new ClassAdapter(classWriter, className);
+            ClassHierarchy.register(classLoader, classReader);
+            ClassWriter classWriter = new HierarchyClassWriter(
+                AgentConfig.isKeepingFrames()
+                    ? ClassWriter.COMPUTE_MAXS
+                    : ClassWriter.COMPUTE_FRAMES | ClassWriter.COMPUTE_MAXS,
+                classLoader
+            );
+            ClassAdapter classAdapter = new ClassAdapter(classWriter, classLoader, className, cacheEntry);
             classReader.accept(classAdapter, ClassReader.EXPAND_FRAMES);
             modifiedClass = classWriter.toByteArray();
+          } catch (RuntimeException e) {
+            // the JVM would drop it silently and keep the original bytes
+            System.err.println("Error: Could not instrument " + className + ", " + e);
+            TraceDictionary.flush();
+            return null;
+          }
+          TraceDictionary.flush();
 
-            // write out to file for debugging
-            //try {
-            //  File f = new File("/Users/brianbush/Desktop/classes/" + className.replace('.', '-') + ".class");
-            //  if (!f.getParentFile().exists())
-            //    f.getParentFile().mkdirs();
-            //  if (!f.exists())
-            //    f.createNewFile();
-            //  FileOutputStream out = new FileOutputStream(f);
-            //  out.write(modifiedClass);
-            //  out.close();
-            //} catch (IOException ex) {
-            //  ex.printStackTrace();
-            //}
-
-            return modifiedClass;
-
+          if (cacheEntry != null) {
+            ClassCache.store(cacheKey, cacheEntry, modifiedClass);
           }
+
+          // write out to file for debugging
+          //try {
+          //  File f = new File("/Users/brianbush/Desktop/classes/" + className.replace('.', '-') + ".class");
+          //  if (!f.getParentFile().exists())
+          //    f.getParentFile().mkdirs();
+          //  if (!f.exists())
+          //    f.createNewFile();
+          //  FileOutputStream out = new FileOutputStream(f);
+          //  out.write(modifiedClass);
+          //  out.close();
+          //} catch (IOException ex) {
+          //  ex.printStackTrace();
+          //}
+
+          return modifiedClass;
         }
 
 				return bytes;
 			}
-		});
+		};
+    // retransformable, so detaching can restore the original bytes
+    inst.addTransformer(transformer, true);
+    instrumentation = inst;
+    attached = true;
 	}
 
+  /**
+   * Check if a class is instrumented by the transformer.
+   * @param className  internal class name
+   * @return  true if it should be instrumented
+   */
+  private static boolean isInstrumented(String className) {
+    return className != null
+        && !className.startsWith("java/")
+        && !className.startsWith("agent/")
+        && filter.matchesClass(className);
+  }
+
+  /**
+   * Retransform the loaded classes the transformer instruments.
+   * @param inst  provides access/control of JVM
+   */
+  private static void retransformLoaded(Instrumentation inst) {
+    List<Class<?>> classes = new ArrayList<>();
+    for (Class<?> loaded : inst.getAllLoadedClasses()) {
+      if (!loaded.isArray()
+          && !loaded.isPrimitive()
+          && inst.isModifiableClass(loaded)
+          && isInstrumented(loaded.getName().replace('.', '/'))) {
+        classes.add(loaded);
+      }
+    }
+    retransform(inst, classes);
+  }
+
+  /**
+   * Retransform loaded classes by name, to apply changes
+   *  decided after they were instrumented.
+   * @param classNames  internal class names
+   */
+  static synchronized void retransform(Set<String> classNames) {
+    if (!attached) {
+      return;
+    }
+    List<Class<?>> classes = new ArrayList<>();
+    for (Class<?> loaded : instrumentation.getAllLoadedClasses()) {
+      if (classNames.contains(loaded.getName().replace('.', '/')) && instrumentation.isModifiableClass(loaded)) {
+        classes.add(loaded);
+      }
+    }
+    retransform(instrumentation, classes);
+  }
+
+  /**
+   * Retransform classes in batches of AgentConfig.retransformBatch.
+   *  The classes of a batch that fails are retried one at a time.
+   * @param inst     provides access/control of JVM
+   * @param classes  classes to retransform
+   */
+  private static void retransform(Instrumentation inst, List<Class<?>> classes) {
+    for (int i = 0; i < classes.size(); i += AgentConfig.retransformBatch) {
+      List<Class<?>> batch = classes.subList(i, Math.min(i + AgentConfig.retransformBatch, classes.size()));
+      try {
+        inst.retransformClasses(batch.toArray(new Class<?>[0]));
+      } catch (UnmodifiableClassException | RuntimeException | LinkageError e) {
+        for (Class<?> loaded : batch) {
+          try {
+            inst.retransformClasses(loaded);
+          } catch (UnmodifiableClassException | RuntimeException | LinkageError ex) {
+            System.err.println("Warning: Could not retransform " + loaded.getName() + ", " + ex);
+          }
+        }
+      }
+    }
+  }
+
 	public static class ClassAdapter extends ClassVisitor {
 
     private ClassVisitor cv;
+    private ClassLoader loader;
     private String className;
+    private String sourceFile;
+    private boolean keepFrames;
+    private ClassCache.Entry cacheEntry;
 
-    public ClassAdapter(ClassVisitor classVisitor, String className) {
+    public ClassAdapter(ClassVisitor classVisitor, ClassLoader loader, String className, ClassCache.Entry cacheEntry) {
       super(ASM6, classVisitor);
       this.cv = classVisitor;
+      this.loader = loader;
       this.className = className;
+      this.cacheEntry = cacheEntry;
+    }
+
+    @Override
+    public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+      // class files before Java 6 have no stack map frames to keep
+      this.keepFrames = AgentConfig.isKeepingFrames() && (version & 0xFFFF) >= Opcodes.V1_6;
+      super.visit(version, access, name, signature, superName, interfaces);
     }
 
     @Override
-    public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
-      MethodVisitor mv;
-      mv = cv.visitMethod(access, name, descriptor, signature, exceptions);
-      mv = new MethodAdapter(ASM6, className, access, name, descriptor, mv);
-      return mv;
+    public void visitSource(String source, String debug) {
+      this.sourceFile = source;
+      super.visitSource(source, debug);
+    }
+
+    /**
+     * Buffer each method in a MethodNode, its local variable
+     *  metadata (name, index, type) comes after the code and
+     *  is needed before the probes are injected.
+     */
+    @Override
+    public MethodVisitor visitMethod(
+        final int access,
+        final String name,
+        final String descriptor,
+        final String signature,
+        final String[] exceptions) {
+      if (!filter.matchesMethod(className, name)) {
+        return super.visitMethod(access, name, descriptor, signature, exceptions);
+      }
+      return new MethodNode(ASM6, access, name, descriptor, signature, exceptions) {
+        @Override
+        public void visitEnd() {
+          if (SkipRules.matches(this) || HotMethods.isSkipping(className + "." + name + descriptor)) {
+            accept(cv);
+            return;
+          }
+
+          List<LocalVariable> locals = ProfileLogger.registerLocals(className, name, descriptor, localVariables);
+          if (cacheEntry != null) {
+            String sig = className + "." + name + descriptor;
+            cacheEntry.addMethod(TraceDictionary.registerMethod(sig), sig, descriptor, locals);
+          }
+          int[] variableIds = LocalScopes.resolve(this, locals);
+
+          MethodVisitor mv;
+          AnalyzerAdapter analyzer = null;
+          mv = cv.visitMethod(access, name, descriptor, signature, exceptions.toArray(new String[0]));
+          if (keepFrames) {
+            // tracks frame types so the probes can add frames where they branch
+            analyzer = new AnalyzerAdapter(className, access, name, descriptor, mv);
+            mv = analyzer;
+          }
+          boolean countOnly = filter.isCountOnly(className, name) || HotMethods.isCounting(className + "." + name + descriptor);
+          mv = new MethodAdapter(
+              ASM6, loader, className, sourceFile, access, name, descriptor, analyzer, cacheEntry, countOnly, variableIds, mv
+          );
+          accept(mv);
+        }
+      };
     }
 
   }
@@ -134,75 +388,186 @@ public class Agent {
   static class MethodAdapter extends AdviceAdapter {
 
 	  private final MethodVisitor mv;
+    private final ClassLoader loader;
     private final String owner;
+    private final String sourceFile;
     private final String name;
     private final String desc;
     private final String sig;
+    private final int methodId;
+    private final AnalyzerAdapter analyzer;
+    private final ClassCache.Entry cacheEntry;
+    private final boolean detailed;
+    private final boolean countOnly;
+    private final int[] variableIds;
 
     private int loggerId;
+    private int varInsnCount;
+    // start/end pairs of the code covered by the exception handler
+    private final List<Label> handlerRanges;
     private int startTimeId;
+    private int currentLine;
+    private int pendingLine;
 
     public MethodAdapter(
         int api,
+        ClassLoader loader,
         String owner,
+        String sourceFile,
         int access,
         String name,
         String desc,
+        AnalyzerAdapter analyzer,
+        ClassCache.Entry cacheEntry,
+        boolean countOnly,
+        int[] variableIds,
         MethodVisitor mv) {
       super(ASM6, mv, access, name, desc);
       this.mv = mv;
+      this.loader = loader;
       this.owner = owner;
+      this.sourceFile = sourceFile;
       this.name = name;
       this.desc = desc;
+      this.analyzer = analyzer;
+      this.cacheEntry = cacheEntry;
       this.sig = owner + "." + getName() + methodDesc;
+      this.methodId = TraceDictionary.registerMethod(sig);
+      // aggregate mode only needs method enter/exit
+      this.detailed = !AgentConfig.isAggregating();
+      this.countOnly = countOnly;
+      this.variableIds = variableIds;
 
       this.loggerId = -1;
+      this.varInsnCount = 0;
+      this.handlerRanges = new ArrayList<>();
       this.startTimeId = -1;
+      this.currentLine = 0;
+      this.pendingLine = -1;
     }
 
     @Override
     public void visitLineNumber(int line, Label label) {
-      if (loggerId != -1) {
+      currentLine = line;
+      // logged before the line's first instruction, after the frame of its label
+      pendingLine = line;
+      super.visitLineNumber(line, label);
+    }
+
+    /**
+     * Log the line number of the instruction about to be visited,
+     *  if it starts a new line.
+     */
+    private void logPendingLine() {
+      if (pendingLine != -1 && detailed && loggerId != -1) {
         mv.visitVarInsn(ALOAD, loggerId);
-        mv.visitLdcInsn(line);
+        mv.visitLdcInsn(pendingLine);
         mv.visitMethodInsn(INVOKEVIRTUAL, "agent/ProfileLogger", "logLineNumber", "(I)V", false);
       }
-      super.visitLineNumber(line, label);
+      pendingLine = -1;
+    }
+
+    @Override
+    public void visitInsn(int opcode) {
+      logPendingLine();
+      super.visitInsn(opcode);
+    }
+
+    @Override
+    public void visitIntInsn(int opcode, int operand) {
+      logPendingLine();
+      super.visitIntInsn(opcode, operand);
+    }
+
+    @Override
+    public void visitTypeInsn(int opcode, String type) {
+      logPendingLine();
+      super.visitTypeInsn(opcode, type);
+    }
+
+    @Override
+    public void visitFieldInsn(int opcode, String owner, String name, String descriptor) {
+      logPendingLine();
+      super.visitFieldInsn(opcode, owner, name, descriptor);
+    }
+
+    @Override
+    public void visitInvokeDynamicInsn(String name, String descriptor, Handle bsm, Object... bsmArgs) {
+      logPendingLine();
+      super.visitInvokeDynamicInsn(name, descriptor, bsm, bsmArgs);
+    }
+
+    @Override
+    public void visitJumpInsn(int opcode, Label label) {
+      logPendingLine();
+      super.visitJumpInsn(opcode, label);
+    }
+
+    @Override
+    public void visitLdcInsn(Object value) {
+      logPendingLine();
+      super.visitLdcInsn(value);
+    }
+
+    @Override
+    public void visitIincInsn(int var, int increment) {
+      logPendingLine();
+      super.visitIincInsn(var, increment);
+    }
+
+    @Override
+    public void visitTableSwitchInsn(int min, int max, Label dflt, Label... labels) {
+      logPendingLine();
+      super.visitTableSwitchInsn(min, max, dflt, labels);
+    }
+
+    @Override
+    public void visitLookupSwitchInsn(Label dflt, int[] keys, Label[] labels) {
+      logPendingLine();
+      super.visitLookupSwitchInsn(dflt, keys, labels);
+    }
+
+    @Override
+    public void visitMultiANewArrayInsn(String descriptor, int numDimensions) {
+      logPendingLine();
+      super.visitMultiANewArrayInsn(descriptor, numDimensions);
     }
 
     @Override
     public void visitVarInsn(int opcode, int var) {
+      logPendingLine();
+      // resolved in code order by LocalScopes, before any probe was added
+      int variableId = varInsnCount < variableIds.length ? variableIds[varInsnCount] : LocalScopes.UNKNOWN;
+      varInsnCount++;
 
       if (AgentUtils.isRead(opcode)) {
 
         super.visitVarInsn(opcode, var);
 
-        if (loggerId != -1) {
+        if (detailed && loggerId != -1 && opcode != Opcodes.RET && variableId != LocalScopes.UNKNOWN) {
           mv.visitVarInsn(ALOAD, loggerId);
-          mv.visitLdcInsn(var);
+          mv.visitLdcInsn(variableId);
           super.visitVarInsn(opcode, var);
           mv.visitMethodInsn(
-              INVOKESTATIC, "java/lang/String", "valueOf",
-              "(" + AgentUtils.loadToStringValueOf(opcode) + ")" + "Ljava/lang/String;",
+              INVOKEVIRTUAL, "agent/ProfileLogger", "logLocalRead",
+              "(I" + AgentUtils.loadToStringValueOf(opcode) + ")V",
               false
           );
-          mv.visitMethodInsn(INVOKEVIRTUAL, "agent/ProfileLogger", "logLocalRead", "(ILjava/lang/String;)V", false);
         }
 
       } else if (AgentUtils.isWrite(opcode)) {
 
         super.visitVarInsn(opcode, var);
 
-        if (loggerId != -1) {
+        if (detailed && loggerId != -1 && variableId != LocalScopes.UNKNOWN) {
           mv.visitVarInsn(ALOAD, loggerId);
-          mv.visitLdcInsn(var);
+          mv.visitLdcInsn(variableId);
           super.visitVarInsn(AgentUtils.storeToLoad(opcode), var);
           mv.visitMethodInsn(
-              INVOKESTATIC, "java/lang/String", "valueOf",
-              "(" + AgentUtils.loadToStringValueOf(AgentUtils.storeToLoad(opcode)) + ")" + "Ljava/lang/String;",
+              INVOKEVIRTUAL, "agent/ProfileLogger", "logLocalWrite",
+              "(I" + AgentUtils.loadToStringValueOf(AgentUtils.storeToLoad(opcode)) + ")V",
               false
           );
-          mv.visitMethodInsn(INVOKEVIRTUAL, "agent/ProfileLogger", "logLocalWrite", "(ILjava/lang/String;)V", false);
         }
 
       } else {
@@ -212,13 +577,30 @@ public class Agent {
 
     @Override
     public void visitMethodInsn(int opcode, String owner, String name, String descriptor, boolean isInterface) {
-      if (loggerId != -1 && AgentUtils.isThreadStart(owner, name, descriptor)) {
+      logPendingLine();
+      if (detailed && loggerId != -1) {
+        // caller file/line is resolved now, the logger only gets its id
+        int callSite = TraceDictionary.registerCallSite(sourceFile, currentLine);
+        if (cacheEntry != null) {
+          cacheEntry.addCallSite(callSite, sourceFile, currentLine);
+        }
+        mv.visitVarInsn(ALOAD, loggerId);
+        mv.visitLdcInsn(callSite);
+        mv.visitMethodInsn(INVOKEVIRTUAL, "agent/ProfileLogger", "logCallSite", "(I)V", false);
+      }
+
+      if (detailed && loggerId != -1 && AgentUtils.isThreadStart(loader, owner, name, descriptor)) {
+        String startSig = owner + "." + name + descriptor;
+        int startId = TraceDictionary.registerMethod(startSig);
+        if (cacheEntry != null) {
+          cacheEntry.addMethod(startId, startSig, null, null);
+        }
         mv.visitInsn(DUP);
         mv.visitVarInsn(ALOAD, loggerId);
         mv.visitInsn(SWAP);
         mv.visitMethodInsn(INVOKEVIRTUAL, owner, "getId", "()J", false);
-        mv.visitLdcInsn(owner + "." + name + descriptor);
-        mv.visitMethodInsn(INVOKEVIRTUAL, "agent/ProfileLogger", "logThreadStart", "(JLjava/lang/String;)V", false);
+        mv.visitLdcInsn(startId);
+        mv.visitMethodInsn(INVOKEVIRTUAL, "agent/ProfileLogger", "logThreadStart", "(JI)V", false);
       }
 
       super.visitMethodInsn(opcode, owner, name, descriptor, isInterface);
@@ -229,7 +611,7 @@ public class Agent {
     @Override
     protected void onMethodEnter() {
 
-      if (AgentUtils.isThreadGetId(owner, name, methodDesc)) {
+      if (AgentUtils.isThreadGetId(loader, owner, name, methodDesc)) {
         /* Note:
             Since, getInstance() will call MyThread.getId(),
             without this we will infinite loop...
@@ -239,6 +621,14 @@ public class Agent {
         return;
       }
 
+      if (countOnly) {
+        // MethodCounters.increment(methodId), and no other probes
+        MethodCounters.register(methodId);
+        mv.visitLdcInsn(methodId);
+        mv.visitMethodInsn(INVOKESTATIC, "agent/MethodCounters", "increment", "(I)V", false);
+        return;
+      }
+
       loggerId = this.newLocal(Type.getObjectType("agent/ProfileLogger"));
       startTimeId = this.newLocal(Type.LONG_TYPE);
 
@@ -246,84 +636,219 @@ public class Agent {
       mv.visitMethodInsn(INVOKESTATIC, "agent/ProfileLogger", "getInstance", "()Lagent/ProfileLogger;", false);
       mv.visitVarInsn(ASTORE, loggerId);
 
-      // logMethodStart( ... )
+      // startTime = 0, only read by the probes of sampled calls
+      mv.visitInsn(LCONST_0);
+      mv.visitVarInsn(LSTORE, startTimeId);
+
+      // if (logger.sampleMethodStart()) { logMethodStart/countMethodStart( ... ); startTime = nanoTime() }
+      Label unsampled = new Label();
       mv.visitVarInsn(ALOAD, loggerId);
-      mv.visitLdcInsn(sig);
+      mv.visitMethodInsn(INVOKEVIRTUAL, "agent/ProfileLogger", "sampleMethodStart", "()Z", false);
+      mv.visitJumpInsn(IFEQ, unsampled);
 
-      // new String[]
-      List<LocalVariable> args = ProfileLogger.getMethodParameters(sig);
-      mv.visitLdcInsn(args.size());
-      this.newArray(Type.getType(String.class));
+      if (!detailed) {
+        mv.visitVarInsn(ALOAD, loggerId);
+        mv.visitLdcInsn(methodId);
+        mv.visitMethodInsn(INVOKEVIRTUAL, "agent/ProfileLogger", "countMethodStart", "(I)V", false);
+      } else {
+        mv.visitVarInsn(ALOAD, loggerId);
+        mv.visitLdcInsn(methodId);
 
-      int index = 0;
-      for (LocalVariable arg : args) {
-        mv.visitInsn(Opcodes.DUP);
-        mv.visitLdcInsn(index);
-        int loadOpcode = AgentUtils.typeToLoad(arg.desc);
-        mv.visitVarInsn(loadOpcode, arg.index);
-        mv.visitMethodInsn(
-            INVOKESTATIC, "java/lang/String", "valueOf",
-            "(" + AgentUtils.loadToStringValueOf(loadOpcode) + ")" + "Ljava/lang/String;",
-            false
-        );
-        mv.visitInsn(Opcodes.AASTORE);
-
-        index++;
-      }
+        // new String[]
+        List<LocalVariable> args = ProfileLogger.getMethodParameters(sig);
+        mv.visitLdcInsn(args.size());
+        this.newArray(Type.getType(String.class));
+
+        int index = 0;
+        for (LocalVariable arg : args) {
+          mv.visitInsn(Opcodes.DUP);
+          mv.visitLdcInsn(index);
+          int loadOpcode = AgentUtils.typeToLoad(arg.desc);
+          mv.visitVarInsn(loadOpcode, arg.index);
+          mv.visitMethodInsn(
+              INVOKESTATIC, "java/lang/String", "valueOf",
+              "(" + AgentUtils.loadToStringValueOf(loadOpcode) + ")" + "Ljava/lang/String;",
+              false
+          );
+          mv.visitInsn(Opcodes.AASTORE);
+
+          index++;
+        }
 
-      mv.visitMethodInsn(INVOKEVIRTUAL, "agent/ProfileLogger", "logMethodStart", "(Ljava/lang/String;[Ljava/lang/String;)V", false);
+        mv.visitMethodInsn(INVOKEVIRTUAL, "agent/ProfileLogger", "logMethodStart", "(I[Ljava/lang/String;)V", false);
+      }
       mv.visitMethodInsn(INVOKESTATIC, "java/lang/System", "nanoTime", "()J", false);
       mv.visitVarInsn(LSTORE, startTimeId);
+      visitMergeLabel(unsampled);
+      startHandlerRange();
     }
 
     @Override
     protected void onMethodExit(int opcode) {
       if (loggerId != -1 && opcode != Opcodes.ATHROW) {
-        // get return value
-        if (opcode == Opcodes.RETURN) {
-          mv.visitLdcInsn("");
+        // the exit probe is left out of the handler, it already popped the call if it throws
+        endHandlerRange();
+
+        // if (logger.sampleMethodEnd()) logMethodDuration/countMethodDuration( ... )
+        Label unsampled = new Label();
+        mv.visitVarInsn(ALOAD, loggerId);
+        mv.visitMethodInsn(INVOKEVIRTUAL, "agent/ProfileLogger", "sampleMethodEnd", "()Z", false);
+        mv.visitJumpInsn(IFEQ, unsampled);
+
+        if (!detailed) {
+          mv.visitVarInsn(ALOAD, loggerId);
+          mv.visitLdcInsn(methodId);
+          mv.visitMethodInsn(INVOKESTATIC, "java/lang/System", "nanoTime", "()J", false);
+          mv.visitVarInsn(LLOAD, startTimeId);
+          mv.visitInsn(LSUB);
+          mv.visitMethodInsn(INVOKEVIRTUAL, "agent/ProfileLogger", "countMethodDuration", "(IJ)V", false);
         } else {
-          mv.visitInsn(Opcodes.DUP);
-          mv.visitMethodInsn(
-              INVOKESTATIC, "java/lang/String", "valueOf",
-              "(" + AgentUtils.loadToStringValueOf(AgentUtils.returnToLoad(opcode)) + ")" + "Ljava/lang/String;",
-              false
-          );
+          // get return value
+          if (opcode == Opcodes.RETURN) {
+            mv.visitLdcInsn("");
+          } else {
+            mv.visitInsn(opcode == Opcodes.LRETURN || opcode == Opcodes.DRETURN ? Opcodes.DUP2 : Opcodes.DUP);
+            mv.visitMethodInsn(
+                INVOKESTATIC, "java/lang/String", "valueOf",
+                "(" + AgentUtils.loadToStringValueOf(AgentUtils.returnToLoad(opcode)) + ")" + "Ljava/lang/String;",
+                false
+            );
+          }
+
+          // load logger
+          mv.visitVarInsn(ALOAD, loggerId);
+          mv.visitInsn(Opcodes.SWAP);
+
+          // get duration
+          mv.visitLdcInsn(methodId);
+          mv.visitMethodInsn(INVOKESTATIC, "java/lang/System", "nanoTime", "()J", false);
+          mv.visitVarInsn(LLOAD, startTimeId);
+          mv.visitInsn(LSUB);
+
+          // make call to logger.logMethodDuration(...)
+          mv.visitMethodInsn(INVOKEVIRTUAL, "agent/ProfileLogger", "logMethodDuration", "(Ljava/lang/String;IJ)V", false);
         }
+        visitMergeLabel(unsampled);
+        startHandlerRange();
+      }
+    }
 
-        // load logger
+    @Override
+    public void visitMaxs(int maxStack, int maxLocals) {
+      if (loggerId != -1) {
+        visitExceptionHandler();
+      }
+      super.visitMaxs(maxStack, maxLocals);
+    }
+
+    private void startHandlerRange() {
+      Label start = new Label();
+      mv.visitLabel(start);
+      handlerRanges.add(start);
+    }
+
+    private void endHandlerRange() {
+      Label end = new Label();
+      mv.visitLabel(end);
+      handlerRanges.add(end);
+    }
+
+    /**
+     * Add a catch-all handler after the method body, so calls
+     *  that exit by throwing are logged and popped off of the
+     *  shadow call-stack before the exception is rethrown:
+     *
+     *    catch (Throwable t) {
+     *      if (logger.sampleMethodEnd()) logMethodThrow/countMethodDuration( ... )
+     *      throw t;
+     *    }
+     *
+     *  Registered last, it only catches what the method's own
+     *  handlers don't.
+     */
+    private void visitExceptionHandler() {
+      Label handler = new Label();
+      mv.visitLabel(handler);
+      handlerRanges.add(handler);
+
+      for (int i = 0; i + 1 < handlerRanges.size(); i += 2) {
+        Label start = handlerRanges.get(i);
+        Label end = handlerRanges.get(i + 1);
+        // a range can't be empty, e.g. before the return of an empty method
+        if (start.getOffset() != end.getOffset()) {
+          mv.visitTryCatchBlock(start, end, handler, null);
+        }
+      }
+
+      if (analyzer != null) {
+        // the handler can be reached from anywhere in the body, only the probe locals are known
+        List<Object> locals = new ArrayList<>();
+        for (int slot = 0; slot < startTimeId; slot++) {
+          locals.add(slot == loggerId ? "agent/ProfileLogger" : Opcodes.TOP);
+        }
+        locals.add(Opcodes.LONG);
+        mv.visitFrame(F_NEW, locals.size(), locals.toArray(), 1, new Object[] { "java/lang/Throwable" });
+      }
+
+      Label unsampled = new Label();
+      mv.visitVarInsn(ALOAD, loggerId);
+      mv.visitMethodInsn(INVOKEVIRTUAL, "agent/ProfileLogger", "sampleMethodEnd", "()Z", false);
+      mv.visitJumpInsn(IFEQ, unsampled);
+
+      if (!detailed) {
+        mv.visitVarInsn(ALOAD, loggerId);
+        mv.visitLdcInsn(methodId);
+        mv.visitMethodInsn(INVOKESTATIC, "java/lang/System", "nanoTime", "()J", false);
+        mv.visitVarInsn(LLOAD, startTimeId);
+        mv.visitInsn(LSUB);
+        mv.visitMethodInsn(INVOKEVIRTUAL, "agent/ProfileLogger", "countMethodDuration", "(IJ)V", false);
+      } else {
+        // logger.logMethodThrow(t, methodId, duration)
+        mv.visitInsn(Opcodes.DUP);
         mv.visitVarInsn(ALOAD, loggerId);
         mv.visitInsn(Opcodes.SWAP);
-
-        // get duration
-        mv.visitLdcInsn(sig);
+        mv.visitLdcInsn(methodId);
         mv.visitMethodInsn(INVOKESTATIC, "java/lang/System", "nanoTime", "()J", false);
         mv.visitVarInsn(LLOAD, startTimeId);
         mv.visitInsn(LSUB);
-
-        // make call to logger.logMethodDuration(...)
-        mv.visitMethodInsn(INVOKEVIRTUAL, "agent/ProfileLogger", "logMethodDuration", "(Ljava/lang/String;Ljava/lang/String;J)V", false);
+        mv.visitMethodInsn(INVOKEVIRTUAL, "agent/ProfileLogger", "logMethodThrow", "(Ljava/lang/Throwable;IJ)V", false);
       }
+      visitMergeLabel(unsampled);
+      mv.visitInsn(ATHROW);
     }
-  }
-
-  public static class PreClassNodeAdapter extends ClassNode implements Opcodes {
-    private ClassVisitor cv;
-    private String className;
 
-    public PreClassNodeAdapter(ClassVisitor classVisitor, String className) {
-      super(ASM6);
-      this.cv = classVisitor;
-      this.className = className;
+    /**
+     * Visit the label after a probe that may have been jumped
+     *  over. When the original frames are kept, the label also
+     *  needs a frame, which is the current one since probes
+     *  leave the locals and stack as they found them.
+     * @param label  label to visit
+     */
+    private void visitMergeLabel(Label label) {
+      mv.visitLabel(label);
+      if (analyzer != null && analyzer.locals != null) {
+        Object[] locals = toFrameTypes(analyzer.locals);
+        Object[] stack = toFrameTypes(analyzer.stack);
+        mv.visitFrame(F_NEW, locals.length, locals, stack.length, stack);
+      }
     }
 
-    @Override
-    public void visitEnd() {
-      for (MethodNode mn : methods) {
-        ProfileLogger.registerLocals(className, mn.name, mn.desc, mn.localVariables);
+    /**
+     * AnalyzerAdapter lists long and double values as two
+     *  entries, frames expect just one.
+     * @param types  types as listed by AnalyzerAdapter
+     * @return  types as expected by visitFrame()
+     */
+    private static Object[] toFrameTypes(List<Object> types) {
+      List<Object> frameTypes = new ArrayList<>();
+      for (int i = 0; i < types.size(); i++) {
+        Object type = types.get(i);
+        frameTypes.add(type);
+        if (type == Opcodes.LONG || type == Opcodes.DOUBLE) {
+          i++;
+        }
       }
-      accept(cv);
+      return frameTypes.toArray();
     }
   }
 }
-
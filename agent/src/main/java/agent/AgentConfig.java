@@ -0,0 +1,297 @@
+package agent;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+public class AgentConfig {
+
+  public static final String OPTION_DELIM = ",";
+  public static final String OPTION_ASSIGN = "=";
+
+  public static final String MODE_TREE = "tree";
+  public static final String MODE_STREAM = "stream";
+  public static final String MODE_AGGREGATE = "aggregate";
+
+  public static final String FORMAT_PROTO = "proto";
+  public static final String FORMAT_COMPACT = "compact";
+
+  public static final String OUTPUT_SYNC = "sync";
+  public static final String OUTPUT_ASYNC = "async";
+  public static final String OUTPUT_MMAP = "mmap";
+
+  public static final String FRAMES_COMPUTE = "compute";
+  public static final String FRAMES_KEEP = "keep";
+
+  public static final String SKIP_DELIM = "+";
+  public static final String SKIP_BRIDGE = "bridge";
+  public static final String SKIP_SYNTHETIC = "synthetic";
+  public static final String SKIP_LAMBDA = "lambda";
+  public static final String SKIP_CLINIT = "clinit";
+  public static final String SKIP_TRIVIAL = "trivial";
+
+  public static final String TIER_FULL = "full";
+  public static final String TIER_COUNT = "count";
+  public static final String TIER_NONE = "none";
+
+  public static final String OVERFLOW_DROP = "drop";
+  public static final String OVERFLOW_BLOCK = "block";
+
+  /* how traces are written: whole trees once the root returns,
+     a stream of enter/exit/instruction events, or only per-method
+     latency histograms and call-edge counts */
+  static String mode = MODE_TREE;
+  static long dumpInterval = 10000;
+
+  /* max instructions a thread keeps for the tree it is building
+     (tree mode), past that the rest of the tree's are dropped */
+  static int maxInstructions = 1 << 22;
+
+  /* encoding of stream events: delimited protobuf messages, or
+     compact records referring to ids in dictionary.bin */
+  static String format = FORMAT_PROTO;
+
+  /* write on the recording thread, through per-thread ring
+     buffers drained by one flusher thread, or into memory-mapped files */
+  static String output = OUTPUT_SYNC;
+  static int bufferSize = 1 << 20;
+  static String overflow = OVERFLOW_DROP;
+  static long flushInterval = 10;
+  static long segmentSize = 8 << 20;
+
+  /* record 1 in sampleRate root calls of each thread, the rest
+     run through the probes without being recorded */
+  static int sampleRate = 1;
+  static long sampleSeed = System.nanoTime();
+
+  /* whether probes record from the start, and whether the switch
+     is registered as the agent:type=Tracing MBean */
+  static boolean tracing = true;
+  static boolean jmx = false;
+
+  /* how many loaded classes are retransformed at once when attaching
+     to, or detaching from, a running JVM */
+  static int retransformBatch = 100;
+
+  /* stop instrumenting methods called at least hotRate times a second
+     that take hotMeanNanos or less on average, checked every
+     adaptiveInterval, leaving only a call counter or no probes */
+  static boolean adaptive = false;
+  static String adaptiveTier = TIER_COUNT;
+  static long adaptiveInterval = 1000;
+  static long hotRate = 1000000;
+  static long hotMeanNanos = 1000;
+
+  /* directory where instrumented classes are kept between runs */
+  static String cacheDir = null;
+
+  /* max classes per class loader whose super class is cached */
+  static int hierarchyCacheSize = 1 << 16;
+
+  /* recompute every stack map frame of an instrumented class, or keep
+     the original ones and only add frames where probes branch */
+  static String frames = FRAMES_COMPUTE;
+
+  /* kinds of methods left uninstrumented (bridge, synthetic, lambda
+     bodies, static initializers, trivial leaf methods) and the bytecode
+     size below which a method is left uninstrumented */
+  static List<String> skip = new ArrayList<>();
+  static int minSize = 0;
+
+  /**
+   * Parse the (optional) options section of the agent args.
+   *
+   * @param options  this should have the following format :
+   *                 "$KEY=$VALUE,...$KEY=$VALUE"
+   */
+  static void parse(String options) {
+    if (options == null || options.isEmpty()) {
+      return;
+    }
+
+    for (String option : options.split(OPTION_DELIM)) {
+      String[] pair = option.split(OPTION_ASSIGN, 2);
+      if (pair.length != 2) {
+        System.err.println("Error: Malformed option '" + option + "'...");
+        continue;
+      }
+      set(pair[0].trim(), pair[1].trim());
+    }
+  }
+
+  /**
+   * Set a single option.
+   * @param key    option name
+   * @param value  option value
+   */
+  private static void set(String key, String value) {
+    switch (key) {
+      case "mode":
+        if (value.equals(MODE_TREE) || value.equals(MODE_STREAM) || value.equals(MODE_AGGREGATE)) {
+          mode = value;
+        } else {
+          System.err.println("Error: Unknown mode '" + value + "'...");
+        }
+        break;
+      case "dumpInterval":
+        dumpInterval = parsePositive(key, value, dumpInterval);
+        break;
+      case "format":
+        if (value.equals(FORMAT_PROTO) || value.equals(FORMAT_COMPACT)) {
+          format = value;
+        } else {
+          System.err.println("Error: Unknown format '" + value + "'...");
+        }
+        break;
+      case "output":
+        if (value.equals(OUTPUT_SYNC) || value.equals(OUTPUT_ASYNC) || value.equals(OUTPUT_MMAP)) {
+          output = value;
+        } else {
+          System.err.println("Error: Unknown output '" + value + "'...");
+        }
+        break;
+      case "maxInstructions":
+        maxInstructions = (int) parsePositive(key, value, maxInstructions);
+        break;
+      case "bufferSize":
+        bufferSize = (int) parsePositive(key, value, bufferSize);
+        break;
+      case "overflow":
+        if (value.equals(OVERFLOW_DROP) || value.equals(OVERFLOW_BLOCK)) {
+          overflow = value;
+        } else {
+          System.err.println("Error: Unknown overflow policy '" + value + "'...");
+        }
+        break;
+      case "flushInterval":
+        flushInterval = parsePositive(key, value, flushInterval);
+        break;
+      case "segmentSize":
+        segmentSize = parsePositive(key, value, segmentSize);
+        break;
+      case "sampleRate":
+        sampleRate = (int) parsePositive(key, value, sampleRate);
+        break;
+      case "frames":
+        if (value.equals(FRAMES_COMPUTE) || value.equals(FRAMES_KEEP)) {
+          frames = value;
+        } else {
+          System.err.println("Error: Unknown frames option '" + value + "'...");
+        }
+        break;
+      case "skip":
+        List<String> kinds = new ArrayList<>();
+        for (String kind : value.split(Pattern.quote(SKIP_DELIM))) {
+          if (Arrays.asList(SKIP_BRIDGE, SKIP_SYNTHETIC, SKIP_LAMBDA, SKIP_CLINIT, SKIP_TRIVIAL).contains(kind)) {
+            kinds.add(kind);
+          } else {
+            System.err.println("Error: Unknown skip rule '" + kind + "'...");
+          }
+        }
+        skip = kinds;
+        break;
+      case "minSize":
+        minSize = (int) parsePositive(key, value, minSize);
+        break;
+      case "tracing":
+        if (value.equals("on") || value.equals("off")) {
+          tracing = value.equals("on");
+        } else {
+          System.err.println("Error: Option '" + key + "' must be on or off...");
+        }
+        break;
+      case "jmx":
+        jmx = Boolean.parseBoolean(value);
+        break;
+      case "retransformBatch":
+        retransformBatch = (int) parsePositive(key, value, retransformBatch);
+        break;
+      case "adaptive":
+        adaptive = Boolean.parseBoolean(value);
+        break;
+      case "adaptiveTier":
+        if (value.equals(TIER_COUNT) || value.equals(TIER_NONE)) {
+          adaptiveTier = value;
+        } else {
+          System.err.println("Error: Unknown tier '" + value + "'...");
+        }
+        break;
+      case "adaptiveInterval":
+        adaptiveInterval = parsePositive(key, value, adaptiveInterval);
+        break;
+      case "hotRate":
+        hotRate = parsePositive(key, value, hotRate);
+        break;
+      case "hotMeanNanos":
+        hotMeanNanos = parsePositive(key, value, hotMeanNanos);
+        break;
+      case "cacheDir":
+        cacheDir = value;
+        break;
+      case "hierarchyCacheSize":
+        hierarchyCacheSize = (int) parsePositive(key, value, hierarchyCacheSize);
+        break;
+      case "sampleSeed":
+        try {
+          sampleSeed = Long.parseLong(value);
+        } catch (NumberFormatException e) {
+          System.err.println("Error: Option '" + key + "' must be a number...");
+        }
+        break;
+      default:
+        System.err.println("Error: Unknown option '" + key + "'...");
+    }
+  }
+
+  /**
+   * Parse a positive number option.
+   * @param key           option name
+   * @param value         option value
+   * @param defaultValue  value to keep if it is invalid
+   * @return  parsed value or defaultValue
+   */
+  private static long parsePositive(String key, String value, long defaultValue) {
+    try {
+      long parsed = Long.parseLong(value);
+      if (parsed > 0 && parsed <= Integer.MAX_VALUE) {
+        return parsed;
+      }
+    } catch (NumberFormatException e) {}
+    System.err.println("Error: Option '" + key + "' must be a positive number...");
+    return defaultValue;
+  }
+
+  static boolean isStreaming() {
+    return mode.equals(MODE_STREAM);
+  }
+
+  static boolean isAggregating() {
+    return mode.equals(MODE_AGGREGATE);
+  }
+
+  static boolean isCompact() {
+    return isStreaming() && format.equals(FORMAT_COMPACT);
+  }
+
+  static boolean isSampling() {
+    return sampleRate > 1;
+  }
+
+  static boolean isKeepingFrames() {
+    return frames.equals(FRAMES_KEEP);
+  }
+
+  static boolean isSkipping(String kind) {
+    return skip.contains(kind);
+  }
+
+  static boolean isAsync() {
+    return output.equals(OUTPUT_ASYNC);
+  }
+
+  static boolean isMapped() {
+    return output.equals(OUTPUT_MMAP);
+  }
+
+}
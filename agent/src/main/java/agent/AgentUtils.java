@@ -1,9 +1,7 @@
 package agent;
 
-import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.Opcodes;
 
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -25,33 +23,24 @@ public class AgentUtils {
     return writeInsnList.contains(opcode);
   }
 
-  protected static boolean isThreadStart(String className, String methodName, String methodDesc) {
+  protected static boolean isThreadStart(ClassLoader loader, String className, String methodName, String methodDesc) {
     return methodName.equals("start")
         && methodDesc.equals("()V")
-        && (className.equals("java/lang/Thread")
-        || listAllSuperClasses(className).contains("java/lang/Thread"));
+        && ClassHierarchy.isSubclassOf(loader, className, "java/lang/Thread");
   }
 
-  protected static boolean isThreadGetId(String className, String methodName, String methodDesc) {
+  protected static boolean isThreadGetId(ClassLoader loader, String className, String methodName, String methodDesc) {
     return methodName.equals("getId")
         && methodDesc.equals("()J")
-        && (className.equals("java/lang/Thread")
-        || listAllSuperClasses(className).contains("java/lang/Thread"));
+        && ClassHierarchy.isSubclassOf(loader, className, "java/lang/Thread");
   }
 
-  protected static List<String> listAllSuperClasses(String className) {
-    return listAllSuperClasses(className, new ArrayList<>());
-  }
-
-  protected static List<String> listAllSuperClasses(String className, List<String> list) {
-    ClassReader reader = null;
-    try {
-      reader = new ClassReader(className);
-    } catch (IOException e) {}
-
-    if (reader != null && reader.getSuperName() != null) {
-      listAllSuperClasses(reader.getSuperName(), list);
-      list.add(reader.getSuperName());
+  protected static List<String> listAllSuperClasses(ClassLoader loader, String className) {
+    List<String> list = new ArrayList<>();
+    String superName = ClassHierarchy.getSuperName(loader, className);
+    while (superName != null) {
+      list.add(0, superName);
+      superName = ClassHierarchy.getSuperName(loader, superName);
     }
     return list;
   }
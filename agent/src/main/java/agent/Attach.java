@@ -0,0 +1,70 @@
+package agent;
+
+import java.io.File;
+import java.lang.reflect.InvocationTargetException;
+import java.net.URL;
+import java.net.URLClassLoader;
+
+/* Loads the agent into, or detaches it from, a running JVM:
+
+     java -cp agent.jar agent.Attach <PID> <AGENT_ARGS>
+     java -cp agent.jar agent.Attach <PID> detach
+
+   The attach API is used through reflection, before Java 9 it lives in
+   the JDK's lib/tools.jar, which is not on the class path by default. */
+public class Attach {
+
+  private static final String VIRTUAL_MACHINE = "com.sun.tools.attach.VirtualMachine";
+
+  public static void main(String[] args) throws Exception {
+    if (args.length != 2) {
+      System.err.println("Usage: Attach <PID> <OUT_DIR>###<PACKAGE1>[,<PACKAGE2>, ... ][###<KEY>=<VALUE>, ...]");
+      System.err.println("       Attach <PID> " + Agent.DETACH);
+      return;
+    }
+
+    File jar = new File(Agent.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+    Class<?> vmClass = loadVirtualMachine();
+    if (vmClass == null) {
+      System.err.println("Error: Attach API not found, run with a JDK...");
+      return;
+    }
+
+    Object vm;
+    try {
+      vm = vmClass.getMethod("attach", String.class).invoke(null, args[0]);
+    } catch (InvocationTargetException e) {
+      System.err.println("Error: Could not attach to " + args[0] + ", " + e.getCause());
+      return;
+    }
+    try {
+      vmClass.getMethod("loadAgent", String.class, String.class).invoke(vm, jar.getAbsolutePath(), args[1]);
+    } catch (InvocationTargetException e) {
+      System.err.println("Error: Could not load the agent, " + e.getCause());
+    } finally {
+      vmClass.getMethod("detach").invoke(vm);
+    }
+  }
+
+  /**
+   * Find the attach API, in tools.jar if it isn't on the class path.
+   * @return  VirtualMachine class, or null
+   */
+  private static Class<?> loadVirtualMachine() throws Exception {
+    try {
+      return Class.forName(VIRTUAL_MACHINE);
+    } catch (ClassNotFoundException e) {}
+
+    File javaHome = new File(System.getProperty("java.home"));
+    for (File toolsJar : new File[] {
+        new File(javaHome, "lib/tools.jar"),
+        new File(javaHome.getParentFile(), "lib/tools.jar") }) {
+      if (toolsJar.isFile()) {
+        URLClassLoader loader = new URLClassLoader(new URL[] { toolsJar.toURI().toURL() });
+        return Class.forName(VIRTUAL_MACHINE, true, loader);
+      }
+    }
+    return null;
+  }
+
+}
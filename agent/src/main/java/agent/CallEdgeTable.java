@@ -0,0 +1,86 @@
+package agent;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/* Fixed-size, lock-free count of caller -> callee edges. Edges are keyed
+   by both method ids packed into a long and placed by linear probing;
+   once the table is full new edges are only counted as dropped. */
+class CallEdgeTable {
+
+  private static final long EMPTY = -1L;
+
+  private final int mask;
+  private final AtomicLongArray keys;
+  private final AtomicLongArray counts;
+  private final AtomicLong dropped = new AtomicLong();
+
+  /**
+   * @param capacity  max number of edges, rounded up to a power of two
+   */
+  CallEdgeTable(int capacity) {
+    int size = Integer.highestOneBit(Math.max(capacity - 1, 1)) << 1;
+    long[] empty = new long[size];
+    Arrays.fill(empty, EMPTY);
+
+    this.mask = size - 1;
+    this.keys = new AtomicLongArray(empty);
+    this.counts = new AtomicLongArray(size);
+  }
+
+  /**
+   * Count one call.
+   * @param caller  id of the calling method or -1 for a root call
+   * @param callee  id of the called method
+   */
+  void increment(int caller, int callee) {
+    long key = ((long) caller << 32) | (callee & 0xFFFFFFFFL);
+    int slot = hash(key) & mask;
+
+    for (int probes = 0; probes <= mask; probes++) {
+      long current = keys.get(slot);
+      if (current == key
+          || (current == EMPTY && (keys.compareAndSet(slot, EMPTY, key) || keys.get(slot) == key))) {
+        counts.incrementAndGet(slot);
+        return;
+      }
+      slot = (slot + 1) & mask;
+    }
+    dropped.incrementAndGet();
+  }
+
+  int size() {
+    return mask + 1;
+  }
+
+  /**
+   * @param slot  slot index
+   * @return  id of the calling method, or -1 for root calls
+   */
+  int getCaller(int slot) {
+    return (int) (keys.get(slot) >> 32);
+  }
+
+  int getCallee(int slot) {
+    return (int) keys.get(slot);
+  }
+
+  boolean isEmpty(int slot) {
+    return keys.get(slot) == EMPTY;
+  }
+
+  long getCount(int slot) {
+    return counts.get(slot);
+  }
+
+  long getDropped() {
+    return dropped.get();
+  }
+
+  private static int hash(long key) {
+    key *= 0x9E3779B97F4A7C15L;
+    return (int) (key ^ (key >>> 32));
+  }
+
+}
@@ -0,0 +1,298 @@
+package agent;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.net.URISyntaxException;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+
+/* On-disk cache of instrumented classes, keyed by the SHA-256 of the
+   original class bytes and everything that changes the injected code.
+   Besides the bytes, an entry holds the method, variable and call-site
+   ids they refer to, so a hit only has to claim those ids again.
+
+   Fresh ids start above the high-water mark stored in the "ids" file,
+   so they don't collide with the ids of cached classes. If they still
+   do (another JVM shared the cache), the entry is treated as a miss. */
+class ClassCache {
+
+  private static final String ID_FILE = "ids";
+  private static final String ENTRY_SUFFIX = ".class";
+  private static final int MAGIC = 0x41504343;
+  private static final int VERSION = 3;
+
+  private static File dir;
+  private static byte[] configStamp;
+
+  /* Dictionary registrations made while transforming one class. */
+  static class Entry {
+
+    static class Method {
+      final int id;
+      final String signature;
+      final String desc;                  // null for methods only referred to
+      final List<LocalVariable> locals;
+
+      Method(int id, String signature, String desc, List<LocalVariable> locals) {
+        this.id = id;
+        this.signature = signature;
+        this.desc = desc;
+        this.locals = locals;
+      }
+    }
+
+    static class CallSite {
+      final int id;
+      final String filename;
+      final int linenum;
+
+      CallSite(int id, String filename, int linenum) {
+        this.id = id;
+        this.filename = filename;
+        this.linenum = linenum;
+      }
+    }
+
+    final List<Method> methods = new ArrayList<>();
+    final List<CallSite> callSites = new ArrayList<>();
+
+    void addMethod(int id, String signature, String desc, List<LocalVariable> locals) {
+      methods.add(new Method(id, signature, desc, locals));
+    }
+
+    void addCallSite(int id, String filename, int linenum) {
+      callSites.add(new CallSite(id, filename == null ? "" : filename, linenum));
+    }
+  }
+
+  /**
+   * Use a cache directory, and start fresh ids above the
+   *  ones its classes use.
+   * @param path  cache directory
+   */
+  static synchronized void open(String path) throws IOException {
+    File cacheDir = new File(path);
+    if (!cacheDir.isDirectory() && !cacheDir.mkdirs()) {
+      throw new IOException("Could not create " + path);
+    }
+    dir = cacheDir;
+    configStamp = getConfigStamp().getBytes(StandardCharsets.UTF_8);
+
+    int[] ids = updateIds(new int[3]);
+    TraceDictionary.start(ids[0], ids[1], ids[2]);
+  }
+
+  static boolean isEnabled() {
+    return dir != null;
+  }
+
+  /**
+   * Get the cache key of a class.
+   * @param bytes  original class bytes
+   * @return  hex SHA-256 of the bytes and the config stamp
+   */
+  static String key(byte[] bytes) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      digest.update(bytes);
+      digest.update(configStamp);
+
+      StringBuilder hex = new StringBuilder();
+      for (byte b : digest.digest()) {
+        hex.append(String.format("%02x", b));
+      }
+      return hex.toString();
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Get the instrumented bytes of a class, claiming the ids
+   *  they refer to.
+   * @param key  cache key
+   * @return  instrumented bytes, or null on a miss
+   */
+  static byte[] load(String key) {
+    File file = new File(dir, key + ENTRY_SUFFIX);
+    if (!file.isFile()) {
+      return null;
+    }
+
+    try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(file.toPath())))) {
+      if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+        return null;
+      }
+
+      Entry entry = new Entry();
+      int methods = in.readInt();
+      for (int i = 0; i < methods; i++) {
+        int id = in.readInt();
+        String signature = in.readUTF();
+        if (!in.readBoolean()) {
+          entry.addMethod(id, signature, null, null);
+          continue;
+        }
+        String desc = in.readUTF();
+        List<LocalVariable> locals = new ArrayList<>();
+        int count = in.readInt();
+        for (int j = 0; j < count; j++) {
+          int variableId = in.readInt();
+          LocalVariable local = new LocalVariable(in.readInt(), in.readUTF(), in.readUTF());
+          local.id = variableId;
+          locals.add(local);
+        }
+        entry.addMethod(id, signature, desc, locals);
+      }
+      int callSites = in.readInt();
+      for (int i = 0; i < callSites; i++) {
+        entry.addCallSite(in.readInt(), in.readUTF(), in.readInt());
+      }
+      byte[] bytes = new byte[in.readInt()];
+      in.readFully(bytes);
+
+      if (!TraceDictionary.restore(entry)) {
+        return null;
+      }
+      for (Entry.Method method : entry.methods) {
+        if (method.desc != null) {
+          ProfileLogger.putLocals(method.signature, method.desc, method.locals);
+        }
+      }
+      return bytes;
+    } catch (IOException e) {
+      System.err.println("Warning: Ignoring unreadable class cache entry " + file + "...");
+      return null;
+    }
+  }
+
+  /**
+   * Add an instrumented class to the cache.
+   * @param key    cache key
+   * @param entry  dictionary registrations of the class
+   * @param bytes  instrumented bytes
+   */
+  static void store(String key, Entry entry, byte[] bytes) {
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream(bytes.length + 1024);
+    try (DataOutputStream out = new DataOutputStream(buffer)) {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+
+      out.writeInt(entry.methods.size());
+      for (Entry.Method method : entry.methods) {
+        out.writeInt(method.id);
+        out.writeUTF(method.signature);
+        out.writeBoolean(method.desc != null);
+        if (method.desc != null) {
+          out.writeUTF(method.desc);
+          out.writeInt(method.locals.size());
+          for (LocalVariable local : method.locals) {
+            out.writeInt(local.id);
+            out.writeInt(local.index);
+            out.writeUTF(local.name);
+            out.writeUTF(local.desc);
+          }
+        }
+      }
+      out.writeInt(entry.callSites.size());
+      for (Entry.CallSite callSite : entry.callSites) {
+        out.writeInt(callSite.id);
+        out.writeUTF(callSite.filename);
+        out.writeInt(callSite.linenum);
+      }
+      out.writeInt(bytes.length);
+      out.write(bytes);
+    } catch (IOException e) {
+      System.out.println("ERROR : " + e);
+      return;
+    }
+
+    try {
+      // ids first, a later run must never hand them out again
+      updateIds(TraceDictionary.getCounts());
+
+      File temp = File.createTempFile(key, ".tmp", dir);
+      try (FileOutputStream out = new FileOutputStream(temp)) {
+        buffer.writeTo(out);
+      }
+      Files.move(temp.toPath(), new File(dir, key + ENTRY_SUFFIX).toPath(), StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException e) {
+      System.out.println("ERROR : " + e);
+    }
+  }
+
+  /**
+   * Raise the high-water marks in the ids file, locked
+   *  against other JVMs using the same cache.
+   * @param counts  method, variable and call-site counts
+   * @return  resulting high-water marks
+   */
+  private static synchronized int[] updateIds(int[] counts) throws IOException {
+    try (RandomAccessFile file = new RandomAccessFile(new File(dir, ID_FILE), "rw")) {
+      FileLock lock = file.getChannel().lock();
+      try {
+        int[] ids = new int[counts.length];
+        if (file.length() >= 4 * counts.length) {
+          for (int i = 0; i < ids.length; i++) {
+            ids[i] = file.readInt();
+          }
+        }
+
+        boolean changed = false;
+        for (int i = 0; i < ids.length; i++) {
+          if (counts[i] > ids[i]) {
+            ids[i] = counts[i];
+            changed = true;
+          }
+        }
+        if (changed) {
+          file.seek(0);
+          for (int id : ids) {
+            file.writeInt(id);
+          }
+        }
+        return ids;
+      } finally {
+        lock.release();
+      }
+    }
+  }
+
+  /**
+   * Describe everything besides the class bytes that changes
+   *  the injected code: the options used at transform time and
+   *  the agent jar itself.
+   * @return  config stamp
+   */
+  private static String getConfigStamp() {
+    String agent = "";
+    CodeSource source = Agent.class.getProtectionDomain().getCodeSource();
+    if (source != null) {
+      try {
+        File jar = new File(source.getLocation().toURI());
+        agent = jar.length() + ":" + jar.lastModified();
+      } catch (URISyntaxException | IllegalArgumentException e) {}
+    }
+
+    return VERSION
+        + "|" + AgentConfig.isAggregating()
+        + "|" + AgentConfig.isKeepingFrames()
+        + "|" + Agent.filter.getMethodRules()
+        + "|" + AgentConfig.skip + ":" + AgentConfig.minSize
+        + "|" + agent;
+  }
+
+}
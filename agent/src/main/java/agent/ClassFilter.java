@@ -0,0 +1,254 @@
+package agent;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/* Include/exclude rules for the classes and methods to instrument, from
+   the package list of the agent args:
+
+     com/foo or com.foo     include the package (and sub packages)
+     -com/foo/internal      exclude it again
+     com/foo/*Service       include classes matching a glob
+     -com/foo/**#get*       exclude methods matching a glob
+     ~com/foo/**#get*       only count the calls of matching methods
+
+   In globs * matches within a package, ** across packages and ? a
+   single character. Package rules are kept in a character trie, the
+   most specific one decides; a matching exclude glob always wins and
+   include globs, also the class part of include method globs, add
+   classes no package rule covers. Matching walks the
+   class name in place and allocates nothing. */
+class ClassFilter {
+
+  static final String EXCLUDE = "-";
+  static final String COUNT_ONLY = "~";
+  static final String METHOD_DELIM = "#";
+
+  private static final int NONE = 0;
+  private static final int INCLUDED = 1;
+  private static final int EXCLUDED = 2;
+
+  private static class Node {
+    char[] keys = new char[0];
+    Node[] children = new Node[0];
+    int rule = NONE;
+
+    Node get(char key) {
+      for (int i = 0; i < keys.length; i++) {
+        if (keys[i] == key) {
+          return children[i];
+        }
+      }
+      return null;
+    }
+
+    Node add(char key) {
+      Node child = get(key);
+      if (child == null) {
+        child = new Node();
+        char[] newKeys = new char[keys.length + 1];
+        Node[] newChildren = new Node[keys.length + 1];
+        System.arraycopy(keys, 0, newKeys, 0, keys.length);
+        System.arraycopy(children, 0, newChildren, 0, keys.length);
+        newKeys[keys.length] = key;
+        newChildren[keys.length] = child;
+        keys = newKeys;
+        children = newChildren;
+      }
+      return child;
+    }
+  }
+
+  private final Node packages = new Node();
+  private final String[] includeGlobs;
+  private final String[] excludeGlobs;
+  private final String[][] includeMethodGlobs;
+  private final String[][] excludeMethodGlobs;
+  private final String[][] countMethodGlobs;
+  private final String methodRules;
+
+  /**
+   * Compile the rules of the agent args.
+   * @param rules  package, glob and method rules
+   */
+  ClassFilter(String[] rules) {
+    List<String> includes = new ArrayList<>();
+    List<String> excludes = new ArrayList<>();
+    List<String[]> includeMethods = new ArrayList<>();
+    List<String[]> excludeMethods = new ArrayList<>();
+    List<String[]> countMethods = new ArrayList<>();
+    StringBuilder methods = new StringBuilder();
+
+    for (String rule : rules) {
+      rule = rule.trim();
+      if (rule.startsWith(COUNT_ONLY)) {
+        rule = rule.substring(COUNT_ONLY.length());
+        int split = rule.indexOf(METHOD_DELIM);
+        String[] glob = split == -1
+            ? new String[] { toInternal(rule), "*" }
+            : new String[] { toInternal(rule.substring(0, split)), rule.substring(split + 1) };
+        countMethods.add(glob);
+        methods.append(COUNT_ONLY).append(glob[0]).append(METHOD_DELIM).append(glob[1]).append(',');
+        continue;
+      }
+
+      boolean exclude = rule.startsWith(EXCLUDE);
+      if (exclude) {
+        rule = rule.substring(EXCLUDE.length());
+      }
+      if (rule.isEmpty()) {
+        continue;
+      }
+
+      int split = rule.indexOf(METHOD_DELIM);
+      if (split != -1) {
+        String[] glob = { toInternal(rule.substring(0, split)), rule.substring(split + 1) };
+        (exclude ? excludeMethods : includeMethods).add(glob);
+        methods.append(exclude ? EXCLUDE : "").append(glob[0]).append(METHOD_DELIM).append(glob[1]).append(',');
+      } else if (rule.indexOf('*') != -1 || rule.indexOf('?') != -1) {
+        (exclude ? excludes : includes).add(toInternal(rule));
+      } else {
+        Node node = packages;
+        for (char c : toInternal(rule).toCharArray()) {
+          node = node.add(c);
+        }
+        node.rule = exclude ? EXCLUDED : INCLUDED;
+      }
+    }
+
+    this.includeGlobs = includes.toArray(new String[0]);
+    this.excludeGlobs = excludes.toArray(new String[0]);
+    this.includeMethodGlobs = includeMethods.toArray(new String[0][]);
+    this.excludeMethodGlobs = excludeMethods.toArray(new String[0][]);
+    this.countMethodGlobs = countMethods.toArray(new String[0][]);
+    this.methodRules = methods.toString();
+  }
+
+  /**
+   * Check if a class should be instrumented.
+   * @param className  internal class name
+   * @return  true if it is included and not excluded
+   */
+  boolean matchesClass(String className) {
+    for (String glob : excludeGlobs) {
+      if (glob(glob, 0, className, 0)) {
+        return false;
+      }
+    }
+
+    // the deepest package rule that ends at a '/' (or the end of the name)
+    int rule = NONE;
+    Node node = packages;
+    for (int i = 0; i < className.length() && node != null; i++) {
+      node = node.get(className.charAt(i));
+      if (node != null && node.rule != NONE
+          && (i + 1 == className.length() || className.charAt(i + 1) == '/')) {
+        rule = node.rule;
+      }
+    }
+    if (rule != NONE) {
+      return rule == INCLUDED;
+    }
+
+    for (String glob : includeGlobs) {
+      if (glob(glob, 0, className, 0)) {
+        return true;
+      }
+    }
+    // a method rule's class is included like a class glob
+    for (String[] glob : includeMethodGlobs) {
+      if (glob(glob[0], 0, className, 0)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Check if a method of an instrumented class should be
+   *  instrumented. If any include rule covers the class, only
+   *  the methods it names are.
+   * @param className   internal class name
+   * @param methodName  method name
+   * @return  true if it is not excluded
+   */
+  boolean matchesMethod(String className, String methodName) {
+    for (String[] glob : excludeMethodGlobs) {
+      if (glob(glob[0], 0, className, 0) && glob(glob[1], 0, methodName, 0)) {
+        return false;
+      }
+    }
+
+    boolean covered = false;
+    for (String[] glob : includeMethodGlobs) {
+      if (glob(glob[0], 0, className, 0)) {
+        if (glob(glob[1], 0, methodName, 0)) {
+          return true;
+        }
+        covered = true;
+      }
+    }
+    return !covered;
+  }
+
+  /**
+   * Check if an instrumented method should only have its
+   *  calls counted (see MethodCounters).
+   * @param className   internal class name
+   * @param methodName  method name
+   * @return  true if a count-only rule matches it
+   */
+  boolean isCountOnly(String className, String methodName) {
+    for (String[] glob : countMethodGlobs) {
+      if (glob(glob[0], 0, className, 0) && glob(glob[1], 0, methodName, 0)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @return  method rules as text, they change the injected code
+   */
+  String getMethodRules() {
+    return methodRules;
+  }
+
+  private static String toInternal(String name) {
+    return name.replace('.', '/');
+  }
+
+  /**
+   * Match a glob against a name, starting at the given offsets.
+   * @param glob  pattern with *, ** and ?
+   * @param g     offset in the pattern
+   * @param name  internal class name or method name
+   * @param n     offset in the name
+   * @return  true if the rest of the name matches the rest of the pattern
+   */
+  private static boolean glob(String glob, int g, String name, int n) {
+    while (g < glob.length()) {
+      char c = glob.charAt(g);
+      if (c == '*') {
+        boolean any = g + 1 < glob.length() && glob.charAt(g + 1) == '*';
+        g += any ? 2 : 1;
+        for (int i = n; i <= name.length(); i++) {
+          if (glob(glob, g, name, i)) {
+            return true;
+          }
+          if (i < name.length() && !any && name.charAt(i) == '/') {
+            break;
+          }
+        }
+        return false;
+      }
+      if (n == name.length() || (c != '?' && c != name.charAt(n)) || (c == '?' && name.charAt(n) == '/')) {
+        return false;
+      }
+      g++;
+      n++;
+    }
+    return n == name.length();
+  }
+
+}
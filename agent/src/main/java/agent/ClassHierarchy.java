@@ -0,0 +1,216 @@
+package agent;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.Opcodes;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/* Super class and interface flag of classes, keyed by (class loader,
+   internal class name). Classes the transformer parses are added as
+   they go by, anything else is read from its loader's class file once,
+   or loaded (without initializing it) if ASM can't parse the file, e.g.
+   a newer JDK's classes. Each loader's map holds at most
+   hierarchyCacheSize classes, past that an arbitrary entry is evicted. */
+class ClassHierarchy {
+
+  private static final String OBJECT = "java/lang/Object";
+
+  private static class ClassInfo {
+    final String superName;
+    final boolean isInterface;
+
+    ClassInfo(String superName, boolean isInterface) {
+      this.superName = superName;
+      this.isInterface = isInterface;
+    }
+  }
+
+  // classes that can't be found, remembered so they are only looked up once
+  private static final ClassInfo MISSING = new ClassInfo(null, false);
+
+  private static final Map<ClassLoader, Map<String, ClassInfo>> classes =
+      Collections.synchronizedMap(new WeakHashMap<ClassLoader, Map<String, ClassInfo>>());
+  private static final Map<String, ClassInfo> bootstrapClasses = new ConcurrentHashMap<>();
+
+  /**
+   * Add a class that was already parsed.
+   * @param loader  defining class loader (null for bootstrap)
+   * @param reader  reader of the class file
+   */
+  static void register(ClassLoader loader, ClassReader reader) {
+    put(getMap(loader), reader.getClassName(), toInfo(reader));
+  }
+
+  /**
+   * Get the super class of a class.
+   * @param loader     class loader to resolve the class with (null for bootstrap)
+   * @param className  internal class name
+   * @return  internal name of the super class, or null for
+   *  java/lang/Object and classes that can't be found
+   */
+  static String getSuperName(ClassLoader loader, String className) {
+    if (className.equals(OBJECT)) {
+      return null;
+    }
+    return getInfo(loader, className).superName;
+  }
+
+  /**
+   * Check if a class is, or extends, another class.
+   * @param loader     class loader to resolve classes with
+   * @param className  internal class name
+   * @param superName  internal name of the possible super class
+   * @return  true if className is superName or one of its subclasses
+   */
+  static boolean isSubclassOf(ClassLoader loader, String className, String superName) {
+    while (className != null) {
+      if (className.equals(superName)) {
+        return true;
+      }
+      className = getSuperName(loader, className);
+    }
+    return false;
+  }
+
+  /**
+   * Find the closest common super class of two classes, the
+   *  way ClassWriter.getCommonSuperClass() does but without
+   *  loading either of them.
+   * @param loader  class loader to resolve classes with
+   * @param type1   internal name of a class
+   * @param type2   internal name of another class
+   * @return  internal name of the common super class
+   * @throws TypeNotPresentException  if a class in either hierarchy can't be found
+   */
+  static String getCommonSuperClass(ClassLoader loader, String type1, String type2) {
+    if (type1.equals(type2)) {
+      return type1;
+    }
+    if (getKnownInfo(loader, type1).isInterface || getKnownInfo(loader, type2).isInterface) {
+      return OBJECT;
+    }
+
+    Set<String> supers = new HashSet<>();
+    for (String type = type1; type != null; type = getKnownSuperName(loader, type)) {
+      supers.add(type);
+    }
+    for (String type = type2; type != null; type = getKnownSuperName(loader, type)) {
+      if (supers.contains(type)) {
+        return type;
+      }
+    }
+    return OBJECT;
+  }
+
+  /**
+   * Get the info of a class that must be found, merging frames
+   *  with a made up hierarchy would produce wrong frames.
+   * @param loader     class loader to resolve the class with
+   * @param className  internal class name
+   * @return  class info
+   */
+  private static ClassInfo getKnownInfo(ClassLoader loader, String className) {
+    ClassInfo info = getInfo(loader, className);
+    if (info == MISSING) {
+      throw new TypeNotPresentException(className.replace('/', '.'), null);
+    }
+    return info;
+  }
+
+  private static String getKnownSuperName(ClassLoader loader, String className) {
+    return className.equals(OBJECT) ? null : getKnownInfo(loader, className).superName;
+  }
+
+  private static ClassInfo getInfo(ClassLoader loader, String className) {
+    Map<String, ClassInfo> map = getMap(loader);
+    ClassInfo info = map.get(className);
+    if (info == null) {
+      info = read(loader, className);
+      put(map, className, info);
+    }
+    return info;
+  }
+
+  private static Map<String, ClassInfo> getMap(ClassLoader loader) {
+    if (loader == null) {
+      return bootstrapClasses;
+    }
+    Map<String, ClassInfo> map = classes.get(loader);
+    if (map == null) {
+      synchronized (classes) {
+        map = classes.get(loader);
+        if (map == null) {
+          map = new ConcurrentHashMap<>();
+          classes.put(loader, map);
+        }
+      }
+    }
+    return map;
+  }
+
+  private static void put(Map<String, ClassInfo> map, String className, ClassInfo info) {
+    if (map.size() >= AgentConfig.hierarchyCacheSize) {
+      Iterator<String> it = map.keySet().iterator();
+      if (it.hasNext()) {
+        it.next();
+        it.remove();
+      }
+    }
+    map.put(className, info);
+  }
+
+  private static ClassInfo toInfo(ClassReader reader) {
+    return new ClassInfo(reader.getSuperName(), (reader.getAccess() & Opcodes.ACC_INTERFACE) != 0);
+  }
+
+  /**
+   * Read the super class from a class file without loading the class,
+   *  or load it if the file can't be read.
+   * @param loader     class loader to find the class file with
+   * @param className  internal class name
+   * @return  class info or MISSING
+   */
+  private static ClassInfo read(ClassLoader loader, String className) {
+    String resource = className + ".class";
+    try (InputStream in = loader != null
+        ? loader.getResourceAsStream(resource)
+        : ClassLoader.getSystemResourceAsStream(resource)) {
+      if (in != null) {
+        return toInfo(new ClassReader(in));
+      }
+    } catch (IOException | RuntimeException e) {
+      // unreadable, or a class file version this ASM doesn't support
+    }
+    return load(loader, className);
+  }
+
+  /**
+   * Get the super class from the loaded class, the way
+   *  ClassWriter.getCommonSuperClass() does by default.
+   * @param loader     class loader to load the class with
+   * @param className  internal class name
+   * @return  class info or MISSING
+   */
+  private static ClassInfo load(ClassLoader loader, String className) {
+    Class<?> type;
+    try {
+      type = Class.forName(className.replace('/', '.'), false, loader);
+    } catch (ClassNotFoundException | LinkageError e) {
+      return MISSING;
+    }
+    Class<?> superClass = type.getSuperclass();
+    return new ClassInfo(
+        superClass != null ? superClass.getName().replace('.', '/') : (type.isInterface() ? OBJECT : null),
+        type.isInterface()
+    );
+  }
+
+}
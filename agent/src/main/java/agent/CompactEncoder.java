@@ -0,0 +1,91 @@
+package agent;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/* Reusable buffer that one compact record is encoded into before it
+   is handed to an output with a single write. */
+class CompactEncoder {
+
+  private static final int INITIAL_SIZE = 256;
+
+  private byte[] buffer = new byte[INITIAL_SIZE];
+  private int position = 0;
+
+  void reset() {
+    position = 0;
+  }
+
+  /**
+   * Write an unsigned LEB128 varint.
+   * @param value  value (treated as unsigned)
+   */
+  void writeVarint(long value) {
+    ensure(10);
+    while ((value & ~0x7FL) != 0) {
+      buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    buffer[position++] = (byte) value;
+  }
+
+  /**
+   * Write a zig-zag encoded varint, so small negative
+   *  values stay small.
+   * @param value  signed value
+   */
+  void writeSignedVarint(long value) {
+    writeVarint((value << 1) ^ (value >> 63));
+  }
+
+  void writeFloat(float value) {
+    writeFixed(Float.floatToRawIntBits(value), 4);
+  }
+
+  void writeDouble(double value) {
+    writeFixed(Double.doubleToRawLongBits(value), 8);
+  }
+
+  void writeBytes(byte[] bytes) {
+    ensure(bytes.length);
+    System.arraycopy(bytes, 0, buffer, position, bytes.length);
+    position += bytes.length;
+  }
+
+  /**
+   * Write a length-prefixed UTF-8 string.
+   * @param value  string
+   */
+  void writeString(String value) {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    writeVarint(bytes.length);
+    writeBytes(bytes);
+  }
+
+  /**
+   * Write the encoded record with a single write.
+   * @param out  output
+   */
+  void writeTo(OutputStream out) throws IOException {
+    out.write(buffer, 0, position);
+  }
+
+  /**
+   * Write a little-endian fixed-size value.
+   */
+  private void writeFixed(long value, int bytes) {
+    ensure(bytes);
+    for (int i = 0; i < bytes; i++) {
+      buffer[position++] = (byte) (value >>> (8 * i));
+    }
+  }
+
+  private void ensure(int bytes) {
+    if (position + bytes > buffer.length) {
+      buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + bytes));
+    }
+  }
+
+}
@@ -0,0 +1,111 @@
+package agent;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/* Writes events in the compact format: a varint tag followed by
+   varint ids (see TraceDictionary), durations and raw values. */
+class CompactEventWriter implements EventWriter {
+
+  static final byte[] MAGIC = { 'A', 'P', 'T', 'R' };
+  static final int VERSION = 1;
+
+  static final int ENTER = 1;
+  static final int THREAD_START = 2;
+  static final int EXIT = 3;
+  static final int READ = 4;
+  static final int WRITE = 5;
+  static final int THROW = 6;
+
+  private final OutputStream out;
+  private final CompactEncoder encoder;
+
+  CompactEventWriter(OutputStream out) {
+    this.out = out;
+    this.encoder = new CompactEncoder();
+
+    encoder.reset();
+    encoder.writeBytes(MAGIC);
+    encoder.writeVarint(VERSION);
+    write();
+  }
+
+  @Override
+  public void enter(MethodCallNode methodCall, int methodId, int callSite) {
+    encoder.reset();
+    if (methodCall.getType() == MethodProtos.MethodCall.MethodCallType.THREAD_START) {
+      encoder.writeVarint(THREAD_START);
+      encoder.writeVarint(methodId);
+      encoder.writeVarint(callSite + 1);
+      encoder.writeSignedVarint(methodCall.getNewThreadId());
+    } else {
+      encoder.writeVarint(ENTER);
+      encoder.writeVarint(methodId);
+      encoder.writeVarint(callSite + 1);
+      encoder.writeVarint(methodCall.getParamValues().size());
+      for (String param : methodCall.getParamValues()) {
+        encoder.writeString(param);
+      }
+    }
+    write();
+  }
+
+  @Override
+  public void exit(long duration, String returnValue) {
+    encoder.reset();
+    encoder.writeVarint(EXIT);
+    encoder.writeSignedVarint(duration);
+    encoder.writeString(returnValue);
+    write();
+  }
+
+  @Override
+  public void exceptionExit(long duration, String exception) {
+    encoder.reset();
+    encoder.writeVarint(THROW);
+    encoder.writeSignedVarint(duration);
+    encoder.writeString(exception);
+    write();
+  }
+
+  @Override
+  public void local(MethodProtos.MethodCall.InstructionType type, LocalVariable local, int line, long value) {
+    startLocal(type, local, line);
+    encoder.writeSignedVarint(value);
+    write();
+  }
+
+  @Override
+  public void local(MethodProtos.MethodCall.InstructionType type, LocalVariable local, int line, double value) {
+    startLocal(type, local, line);
+    if (local.desc.equals("F")) {
+      encoder.writeFloat((float) value);
+    } else {
+      encoder.writeDouble(value);
+    }
+    write();
+  }
+
+  @Override
+  public void local(MethodProtos.MethodCall.InstructionType type, LocalVariable local, int line, String value) {
+    startLocal(type, local, line);
+    encoder.writeString(value);
+    write();
+  }
+
+  private void startLocal(MethodProtos.MethodCall.InstructionType type, LocalVariable local, int line) {
+    encoder.reset();
+    encoder.writeVarint(type == MethodProtos.MethodCall.InstructionType.READ ? READ : WRITE);
+    encoder.writeVarint(local.id);
+    encoder.writeVarint(line);
+  }
+
+  private void write() {
+    try {
+      encoder.writeTo(out);
+    } catch (IOException e) {
+      System.out.println("ERROR : " + e);
+    }
+  }
+
+}
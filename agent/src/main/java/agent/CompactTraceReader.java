@@ -0,0 +1,264 @@
+package agent;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/* Turns compact trace files back into TraceEvent messages, resolving
+   method, variable and call-site ids through dictionary.bin. */
+class CompactTraceReader {
+
+  private final Map<Integer, String> files = new HashMap<>();
+  private final Map<Integer, String> methods = new HashMap<>();
+  private final Map<Integer, MethodProtos.MethodCall.Instruction.Variable> variables = new HashMap<>();
+  private final Map<Integer, MethodProtos.MethodCall.CallerInfo> callSites = new HashMap<>();
+
+  /**
+   * Load the dictionary written next to the trace files.
+   * @param dictionary  path of dictionary.bin
+   */
+  CompactTraceReader(Path dictionary) throws IOException {
+    InputStream in = new ByteArrayInputStream(Files.readAllBytes(dictionary));
+    checkHeader(in, TraceDictionary.MAGIC, TraceDictionary.VERSION);
+
+    while (true) {
+      int tag = in.read();
+      if (tag == -1) {
+        break;
+      }
+
+      try {
+        switch (tag) {
+          case TraceDictionary.FILE:
+            files.put(readInt(in), readString(in));
+            break;
+          case TraceDictionary.METHOD:
+            methods.put(readInt(in), readString(in));
+            break;
+          case TraceDictionary.VARIABLE:
+            int id = readInt(in);
+            readInt(in);  // method id
+            int index = readInt(in);
+            String name = readString(in);
+            variables.put(id, new LocalVariable(index, name, readString(in)).toProto());
+            break;
+          case TraceDictionary.CALL_SITE:
+            int callSite = readInt(in);
+            String file = files.get(readInt(in));
+            callSites.put(
+                callSite,
+                MethodProtos.MethodCall.CallerInfo.newBuilder()
+                    .setFilename(file == null ? "" : file)
+                    .setLinenum(readInt(in))
+                    .build()
+            );
+            break;
+          default:
+            throw new IOException("Unknown dictionary entry " + tag);
+        }
+      } catch (EOFException e) {
+        // the JVM died while an entry was being written
+        System.err.println("Warning: Truncated dictionary...");
+        break;
+      }
+    }
+  }
+
+  /**
+   * Decode the events of a compact trace file.
+   * @param in  trace data
+   * @return  events in the order they were written
+   */
+  TraceReader.EventSource events(final InputStream in) throws IOException {
+    checkHeader(in, CompactEventWriter.MAGIC, CompactEventWriter.VERSION);
+
+    return new TraceReader.EventSource() {
+      private int depth = 0;
+
+      @Override
+      public MethodProtos.TraceEvent next() throws IOException {
+        int tag = in.read();
+        if (tag == -1) {
+          return null;
+        }
+
+        switch (tag) {
+          case CompactEventWriter.ENTER:
+            return enter(tag, in, depth++);
+          case CompactEventWriter.THREAD_START:
+            // a started Thread never returns in this thread
+            return enter(tag, in, depth);
+          case CompactEventWriter.EXIT:
+            depth--;
+            return MethodProtos.TraceEvent.newBuilder()
+                .setType(MethodProtos.TraceEvent.EventType.METHOD_EXIT)
+                .setDuration(readSignedVarint(in))
+                .setReturnValue(readString(in))
+                .build();
+          case CompactEventWriter.THROW:
+            depth--;
+            return MethodProtos.TraceEvent.newBuilder()
+                .setType(MethodProtos.TraceEvent.EventType.METHOD_EXIT)
+                .setDuration(readSignedVarint(in))
+                .setException(readString(in))
+                .build();
+          case CompactEventWriter.READ:
+          case CompactEventWriter.WRITE:
+            return MethodProtos.TraceEvent.newBuilder()
+                .setType(MethodProtos.TraceEvent.EventType.INSTRUCTION)
+                .setInstruction(local(tag, in))
+                .build();
+          default:
+            throw new IOException("Unknown event " + tag);
+        }
+      }
+    };
+  }
+
+  /**
+   * Decode a method (or Thread start) enter event.
+   * @param tag    ENTER or THREAD_START
+   * @param in     trace data
+   * @param depth  calls entered before this one
+   * @return  METHOD_ENTER event
+   */
+  private MethodProtos.TraceEvent enter(int tag, InputStream in, int depth) throws IOException {
+    MethodProtos.MethodCall.Builder call = MethodProtos.MethodCall.newBuilder()
+        .setSignature(lookup(methods, readInt(in), "method"))
+        .setDepth(depth);
+
+    int callSite = readInt(in) - 1;
+    if (callSite >= 0) {
+      call.setCaller(lookup(callSites, callSite, "call-site"));
+    }
+
+    if (tag == CompactEventWriter.THREAD_START) {
+      call.setType(MethodProtos.MethodCall.MethodCallType.THREAD_START)
+          .setNewThreadId(readSignedVarint(in));
+    } else {
+      int params = readInt(in);
+      for (int i = 0; i < params; i++) {
+        call.addParamValues(readString(in));
+      }
+    }
+
+    return MethodProtos.TraceEvent.newBuilder()
+        .setType(MethodProtos.TraceEvent.EventType.METHOD_ENTER)
+        .setCall(call)
+        .build();
+  }
+
+  /**
+   * Decode a local read/write, the encoding of the value
+   *  depends on the type of the variable.
+   * @param tag  READ or WRITE
+   * @param in   trace data
+   * @return  READ/WRITE instruction
+   */
+  private MethodProtos.MethodCall.Instruction local(int tag, InputStream in) throws IOException {
+    MethodProtos.MethodCall.Instruction.Variable variable = lookup(variables, readInt(in), "variable");
+    MethodProtos.MethodCall.Instruction.Builder insn = MethodProtos.MethodCall.Instruction.newBuilder()
+        .setType(tag == CompactEventWriter.READ
+            ? MethodProtos.MethodCall.InstructionType.READ
+            : MethodProtos.MethodCall.InstructionType.WRITE)
+        .setVariable(variable)
+        .setLinenum(readInt(in));
+
+    switch (variable.getType()) {
+      case "Z":
+      case "C":
+      case "B":
+      case "S":
+      case "I":
+      case "J":
+        insn.setLongValue(readSignedVarint(in));
+        break;
+      case "F":
+        insn.setDoubleValue(Float.intBitsToFloat((int) readFixed(in, 4)));
+        break;
+      case "D":
+        insn.setDoubleValue(Double.longBitsToDouble(readFixed(in, 8)));
+        break;
+      default:
+        insn.setValue(readString(in));
+    }
+    return insn.build();
+  }
+
+  private static <T> T lookup(Map<Integer, T> table, int id, String kind) throws IOException {
+    T value = table.get(id);
+    if (value == null) {
+      throw new IOException("Unknown " + kind + " id " + id);
+    }
+    return value;
+  }
+
+  private static void checkHeader(InputStream in, byte[] magic, int version) throws IOException {
+    byte[] bytes = readBytes(in, magic.length);
+    if (!Arrays.equals(bytes, magic)) {
+      throw new IOException("Not a compact trace file");
+    }
+    int fileVersion = readInt(in);
+    if (fileVersion != version) {
+      throw new IOException("Unsupported version " + fileVersion);
+    }
+  }
+
+  private static long readVarint(InputStream in) throws IOException {
+    long value = 0;
+    for (int shift = 0; shift < 64; shift += 7) {
+      int b = in.read();
+      if (b == -1) {
+        throw new EOFException("Truncated varint");
+      }
+      value |= (long) (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new IOException("Malformed varint");
+  }
+
+  private static int readInt(InputStream in) throws IOException {
+    return (int) readVarint(in);
+  }
+
+  private static long readSignedVarint(InputStream in) throws IOException {
+    long value = readVarint(in);
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+  private static long readFixed(InputStream in, int bytes) throws IOException {
+    byte[] raw = readBytes(in, bytes);
+    long value = 0;
+    for (int i = 0; i < bytes; i++) {
+      value |= (long) (raw[i] & 0xFF) << (8 * i);
+    }
+    return value;
+  }
+
+  private static String readString(InputStream in) throws IOException {
+    return new String(readBytes(in, readInt(in)), StandardCharsets.UTF_8);
+  }
+
+  private static byte[] readBytes(InputStream in, int length) throws IOException {
+    byte[] bytes = new byte[length];
+    int read = 0;
+    while (read < length) {
+      int n = in.read(bytes, read, length - read);
+      if (n == -1) {
+        throw new EOFException("Truncated record");
+      }
+      read += n;
+    }
+    return bytes;
+  }
+
+}
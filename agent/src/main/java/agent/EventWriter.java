@@ -0,0 +1,55 @@
+package agent;
+
+/* Encodes the events of one thread in stream mode. */
+interface EventWriter {
+
+  /**
+   * Write a method call (or Thread start) that was entered.
+   * @param methodCall  entered call
+   * @param methodId    id of the called method
+   * @param callSite    id of the call-site or -1
+   */
+  void enter(MethodCallNode methodCall, int methodId, int callSite);
+
+  /**
+   * Write the return of the last entered call.
+   * @param duration     call duration
+   * @param returnValue  value returned
+   */
+  void exit(long duration, String returnValue);
+
+  /**
+   * Write the exceptional exit of the last entered call.
+   * @param duration   call duration
+   * @param exception  class of the thrown exception
+   */
+  void exceptionExit(long duration, String exception);
+
+  /**
+   * Write a read/write of an integral local.
+   * @param type   READ or WRITE
+   * @param local  local variable metadata
+   * @param line   line number
+   * @param value  raw value
+   */
+  void local(MethodProtos.MethodCall.InstructionType type, LocalVariable local, int line, long value);
+
+  /**
+   * Write a read/write of a floating-point local.
+   * @param type   READ or WRITE
+   * @param local  local variable metadata
+   * @param line   line number
+   * @param value  raw value
+   */
+  void local(MethodProtos.MethodCall.InstructionType type, LocalVariable local, int line, double value);
+
+  /**
+   * Write a read/write of a reference local.
+   * @param type   READ or WRITE
+   * @param local  local variable metadata
+   * @param line   line number
+   * @param value  referenced object as text
+   */
+  void local(MethodProtos.MethodCall.InstructionType type, LocalVariable local, int line, String value);
+
+}
@@ -0,0 +1,27 @@
+package agent;
+
+import org.objectweb.asm.ClassWriter;
+
+/* ClassWriter that resolves common super classes for COMPUTE_FRAMES from
+   ClassHierarchy, which reads class files instead of loading classes with
+   Class.forName() while the class being transformed is still being
+   defined, and only loads those it can't read. */
+class HierarchyClassWriter extends ClassWriter {
+
+  private final ClassLoader loader;
+
+  /**
+   * @param flags   ClassWriter flags
+   * @param loader  loader of the class being transformed
+   */
+  HierarchyClassWriter(int flags, ClassLoader loader) {
+    super(flags);
+    this.loader = loader;
+  }
+
+  @Override
+  protected String getCommonSuperClass(String type1, String type2) {
+    return ClassHierarchy.getCommonSuperClass(loader, type1, type2);
+  }
+
+}
@@ -0,0 +1,164 @@
+package agent;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/* Adaptive de-instrumentation. A daemon thread sums the calls each thread
+   counted every adaptiveInterval; a method called at least hotRate times
+   a second, in hotMeanNanos or less on average, costs more in probes
+   than it runs. It is marked, and its class retransformed with marked
+   methods in the adaptiveTier: only counted, or without any probes.
+   Marked methods are listed in deinstrumented.txt, and in the tier
+   column of stats.txt. */
+class HotMethods extends Thread {
+
+  static final String FILE_NAME = "deinstrumented.txt";
+
+  private static final Set<String> methods = ConcurrentHashMap.newKeySet();
+  private static final Set<String> classes = ConcurrentHashMap.newKeySet();
+  private static HotMethods monitor;
+
+  private final File file;
+  private final long intervalNanos;
+  private final List<String> report;
+  private long[] lastCalls;
+  private long[] lastNanos;
+  private long lastTime;
+
+  private HotMethods(File file, long intervalMillis) {
+    super("asm-profiler-adaptive");
+    setDaemon(true);
+    this.file = file;
+    this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMillis);
+    this.report = new ArrayList<>();
+    this.lastCalls = new long[0];
+    this.lastNanos = new long[0];
+  }
+
+  /**
+   * Start watching the calls of instrumented methods.
+   * @param dir  trace output directory
+   */
+  static synchronized void start(String dir) {
+    File file = new File(dir, FILE_NAME);
+    file.getParentFile().mkdirs();
+    monitor = new HotMethods(file, AgentConfig.adaptiveInterval);
+    monitor.start();
+  }
+
+  /**
+   * @param signature  method signature
+   * @return  true if the method was de-instrumented
+   */
+  static boolean isDeinstrumented(String signature) {
+    return methods.contains(signature);
+  }
+
+  /**
+   * @param signature  method signature
+   * @return  true if the method was de-instrumented down to no probes
+   */
+  static boolean isSkipping(String signature) {
+    return isDeinstrumented(signature) && AgentConfig.adaptiveTier.equals(AgentConfig.TIER_NONE);
+  }
+
+  /**
+   * @param signature  method signature
+   * @return  true if the method was de-instrumented down to a call counter
+   */
+  static boolean isCounting(String signature) {
+    return isDeinstrumented(signature) && AgentConfig.adaptiveTier.equals(AgentConfig.TIER_COUNT);
+  }
+
+  /**
+   * @param className  internal class name
+   * @return  true if any method of the class was de-instrumented
+   */
+  static boolean hasDeinstrumented(String className) {
+    return classes.contains(className);
+  }
+
+  @Override
+  public void run() {
+    lastTime = System.nanoTime();
+    while (true) {
+      LockSupport.parkNanos(this, intervalNanos);
+      check();
+    }
+  }
+
+  /**
+   * Mark the methods that were hot and cheap since the
+   *  last check, then retransform their classes.
+   */
+  private void check() {
+    long now = System.nanoTime();
+    long elapsed = now - lastTime;
+    long[][] counts = ProfileLogger.getCallCounts();
+    long[] calls = counts[0];
+    long[] nanos = counts[1];
+
+    Set<String> owners = new HashSet<>();
+    for (int id = 0; id < calls.length; id++) {
+      long deltaCalls = calls[id] - (id < lastCalls.length ? lastCalls[id] : 0);
+      long deltaNanos = nanos[id] - (id < lastNanos.length ? lastNanos[id] : 0);
+      if (deltaCalls <= 0) {
+        continue;
+      }
+
+      long rate = (long) (deltaCalls * 1e9 / elapsed);
+      long mean = deltaNanos / deltaCalls;
+      if (rate >= AgentConfig.hotRate && mean <= AgentConfig.hotMeanNanos) {
+        String signature = TraceDictionary.getMethod(id);
+        if (methods.add(signature)) {
+          String owner = signature.substring(0, signature.lastIndexOf('.', signature.indexOf('(')));
+          classes.add(owner);
+          owners.add(owner);
+          report.add(signature + "\t" + rate + "\t" + mean);
+        }
+      }
+    }
+    lastCalls = calls;
+    lastNanos = nanos;
+    lastTime = now;
+
+    if (!owners.isEmpty()) {
+      Agent.retransform(owners);
+      write();
+    }
+  }
+
+  /**
+   * Rewrite the list of de-instrumented methods, through
+   *  a temporary file like MethodStats does.
+   */
+  private void write() {
+    File temp = new File(file.getPath() + ".tmp");
+    try (PrintStream out = new PrintStream(temp, "UTF-8")) {
+      out.println("# method\tcalls_per_s\tmean_ns");
+      for (String line : report) {
+        out.println(line);
+      }
+    } catch (IOException e) {
+      System.out.println("ERROR : " + e);
+      return;
+    }
+
+    try {
+      Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException e) {
+      System.out.println("ERROR : " + e);
+    }
+  }
+
+}
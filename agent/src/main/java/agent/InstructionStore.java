@@ -0,0 +1,260 @@
+package agent;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/* Instructions of one thread's call trees (tree mode), kept off-heap in
+   one direct buffer per column instead of a protobuf message each:
+
+     type      READ/WRITE/METHOD_CALL, and how the value is stored
+     variable  variable id (see TraceDictionary)
+     line      line number
+     value     integral value, double bits, or an index into strings
+     next      next record of the same call, or -1
+
+   A call's records are interleaved with those of its callees, so each
+   call node only holds its first and last record. Messages are built
+   when a tree is written, after which the store is cleared, and shrunk
+   back if a deep tree made it grow past RETAINED_CAPACITY. A store that
+   reaches maxInstructions, or can't get the direct memory to grow, drops
+   every later record until it is cleared, so the records it kept still
+   line up with their calls. */
+class InstructionStore {
+
+  static final int NONE = -1;
+
+  private static final int VALUE_LONG = 0;
+  private static final int VALUE_DOUBLE = 1 << 4;
+  private static final int VALUE_STRING = 2 << 4;
+  private static final int TYPE_MASK = 0x0F;
+  private static final int VALUE_MASK = 0xF0;
+
+  private static final int INITIAL_CAPACITY = 1 << 12;
+  private static final int RETAINED_CAPACITY = 1 << 16;
+  // the widest column (8 bytes a record) must stay within an int of bytes
+  private static final int MAX_CAPACITY = Integer.MAX_VALUE / 8;
+
+  private final int maxCapacity;
+
+  private ByteBuffer types;
+  private IntBuffer variables;
+  private IntBuffer lines;
+  private LongBuffer values;
+  private IntBuffer next;
+  private int capacity;
+  private int count;
+  private boolean full;
+
+  private String[] strings;
+  private int stringCount;
+
+  InstructionStore() {
+    this.maxCapacity = Math.min(AgentConfig.maxInstructions, MAX_CAPACITY);
+    allocate(Math.min(INITIAL_CAPACITY, maxCapacity));
+    this.strings = new String[INITIAL_CAPACITY];
+  }
+
+  /**
+   * Add a read/write of an integral local.
+   * @param last      last record of the call, or NONE
+   * @param type      READ or WRITE
+   * @param variable  variable id
+   * @param line      line number
+   * @param value     raw value
+   * @return  index of the new record
+   */
+  int addLong(int last, MethodProtos.MethodCall.InstructionType type, int variable, int line, long value) {
+    return add(last, type.getNumber() | VALUE_LONG, variable, line, value);
+  }
+
+  /**
+   * Add a read/write of a floating-point local.
+   * @param last      last record of the call, or NONE
+   * @param type      READ or WRITE
+   * @param variable  variable id
+   * @param line      line number
+   * @param value     raw value
+   * @return  index of the new record
+   */
+  int addDouble(int last, MethodProtos.MethodCall.InstructionType type, int variable, int line, double value) {
+    return add(last, type.getNumber() | VALUE_DOUBLE, variable, line, Double.doubleToRawLongBits(value));
+  }
+
+  /**
+   * Add a read/write of a reference local.
+   * @param last      last record of the call, or NONE
+   * @param type      READ or WRITE
+   * @param variable  variable id
+   * @param line      line number
+   * @param value     referenced object as a string
+   * @return  index of the new record
+   */
+  int addString(int last, MethodProtos.MethodCall.InstructionType type, int variable, int line, String value) {
+    int record = add(last, type.getNumber() | VALUE_STRING, variable, line, stringCount);
+    if (record == last) {
+      // dropped by a full store, keep its string out of the heap too
+      return last;
+    }
+    if (stringCount == strings.length) {
+      strings = Arrays.copyOf(strings, stringCount * 2);
+    }
+    strings[stringCount++] = value;
+    return record;
+  }
+
+  /**
+   * Add a call, its line and signature are taken from the
+   *  matching callee when the message is built.
+   * @param last  last record of the call, or NONE
+   * @return  index of the new record
+   */
+  int addCall(int last) {
+    return add(last, MethodProtos.MethodCall.InstructionType.METHOD_CALL_VALUE, NONE, 0, 0);
+  }
+
+  private int add(int last, int type, int variable, int line, long value) {
+    if (full) {
+      return last;
+    }
+    if (count == capacity) {
+      if (capacity == maxCapacity) {
+        System.err.println("Warning: More than " + maxCapacity + " instructions under one root call, dropping the rest...");
+        full = true;
+        return last;
+      }
+      try {
+        allocate((int) Math.min((long) capacity * 2, maxCapacity));
+      } catch (OutOfMemoryError e) {
+        // the old columns are still in use while the new ones are allocated
+        System.err.println("Warning: Out of memory for instructions under one root call, dropping the rest...");
+        full = true;
+        return last;
+      }
+    }
+    int record = count++;
+    types.put(record, (byte) type);
+    variables.put(record, variable);
+    lines.put(record, line);
+    values.put(record, value);
+    next.put(record, NONE);
+    if (last != NONE) {
+      next.put(last, record);
+    }
+    return record;
+  }
+
+  /**
+   * Build the instruction messages of a call.
+   * @param first  first record of the call, or NONE
+   * @param calls  callees of the call, in order
+   * @return  instruction messages
+   */
+  List<MethodProtos.MethodCall.Instruction> toProto(int first, List<MethodCallNode> calls) {
+    List<MethodProtos.MethodCall.Instruction> list = new ArrayList<>();
+    int callIndex = 0;
+    for (int record = first; record != NONE; record = next.get(record)) {
+      int type = types.get(record);
+      MethodProtos.MethodCall.InstructionType insnType =
+          MethodProtos.MethodCall.InstructionType.forNumber(type & TYPE_MASK);
+
+      if (insnType == MethodProtos.MethodCall.InstructionType.METHOD_CALL) {
+        MethodCallNode child = calls.get(callIndex++);
+        list.add(MethodProtos.MethodCall.Instruction.newBuilder()
+            .setType(insnType)
+            .setLinenum(child.getCaller() != null ? child.getCaller().getLinenum() : 0)
+            .setCallSignature(child.getSignature())
+            .build());
+        continue;
+      }
+
+      LocalVariable local = TraceDictionary.getVariable(variables.get(record));
+      MethodProtos.MethodCall.Instruction.Builder builder = local.instructionBuilder(insnType, lines.get(record));
+      long value = values.get(record);
+      switch (type & VALUE_MASK) {
+        case VALUE_DOUBLE:
+          builder.setDoubleValue(Double.longBitsToDouble(value));
+          break;
+        case VALUE_STRING:
+          builder.setValue(strings[(int) value]);
+          break;
+        default:
+          builder.setLongValue(value);
+      }
+      list.add(builder.build());
+    }
+    return list;
+  }
+
+  /**
+   * Drop every record, once the trees referring to them were written.
+   */
+  void clear() {
+    count = 0;
+    full = false;
+    if (capacity > RETAINED_CAPACITY) {
+      // the old columns' direct memory is freed once they are collected
+      try {
+        allocate(INITIAL_CAPACITY);
+      } catch (OutOfMemoryError e) {
+        // keep the big columns, shrinking is retried after the next tree
+      }
+    }
+    if (strings.length > RETAINED_CAPACITY) {
+      strings = new String[INITIAL_CAPACITY];
+    } else {
+      Arrays.fill(strings, 0, stringCount, null);
+    }
+    stringCount = 0;
+  }
+
+  /**
+   * (Re)allocate the columns, keeping the records so far.
+   * @param newCapacity  number of records
+   */
+  private void allocate(int newCapacity) {
+    ByteBuffer newTypes = ByteBuffer.allocateDirect(newCapacity).order(ByteOrder.nativeOrder());
+    IntBuffer newVariables = allocateInts(newCapacity);
+    IntBuffer newLines = allocateInts(newCapacity);
+    LongBuffer newValues = ByteBuffer.allocateDirect(newCapacity * 8).order(ByteOrder.nativeOrder()).asLongBuffer();
+    IntBuffer newNext = allocateInts(newCapacity);
+
+    if (count > 0) {
+      newTypes.put(head(types.duplicate()));
+      newVariables.put(head(variables.duplicate()));
+      newLines.put(head(lines.duplicate()));
+      newValues.put(head(values.duplicate()));
+      newNext.put(head(next.duplicate()));
+    }
+
+    types = newTypes;
+    variables = newVariables;
+    lines = newLines;
+    values = newValues;
+    next = newNext;
+    capacity = newCapacity;
+  }
+
+  /**
+   * Limit a view of a column to the records so far, for a bulk copy.
+   *  Through Buffer, whose position()/limit() don't return the
+   *  subclass before Java 9.
+   * @param column  duplicate of a column
+   * @return  the same view
+   */
+  private <T extends Buffer> T head(T column) {
+    column.clear();
+    column.limit(count);
+    return column;
+  }
+
+  private static IntBuffer allocateInts(int size) {
+    return ByteBuffer.allocateDirect(size * 4).order(ByteOrder.nativeOrder()).asIntBuffer();
+  }
+
+}
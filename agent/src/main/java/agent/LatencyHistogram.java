@@ -0,0 +1,93 @@
+package agent;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/* Log-linear histogram of durations in ns, shared by all threads. Each
+   power of two is split into SUB_BUCKETS linear buckets, so a value is
+   reported within 1/SUB_BUCKETS of its real size whatever its scale. */
+class LatencyHistogram {
+
+  private static final int SUB_BITS = 4;
+  private static final int SUB_BUCKETS = 1 << SUB_BITS;
+  private static final int BUCKETS = (64 - SUB_BITS + 1) * SUB_BUCKETS;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  private final AtomicLong count = new AtomicLong();
+  private final AtomicLong total = new AtomicLong();
+  private final AtomicLong max = new AtomicLong();
+
+  /**
+   * Record one duration.
+   * @param value  duration in ns
+   */
+  void record(long value) {
+    if (value < 0) {
+      value = 0;
+    }
+    counts.incrementAndGet(index(value));
+    count.incrementAndGet();
+    total.addAndGet(value);
+
+    long current = max.get();
+    while (value > current && !max.compareAndSet(current, value)) {
+      current = max.get();
+    }
+  }
+
+  long getCount() {
+    return count.get();
+  }
+
+  long getTotal() {
+    return total.get();
+  }
+
+  long getMax() {
+    return max.get();
+  }
+
+  /**
+   * Get the value at a percentile, as the upper bound of
+   *  the bucket it falls in.
+   * @param percentile  percentile between 0 and 1
+   * @return  duration in ns
+   */
+  long getPercentile(double percentile) {
+    long rank = (long) Math.ceil(percentile * count.get());
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += counts.get(i);
+      if (seen >= rank && seen > 0) {
+        return Math.min(upperBound(i), max.get());
+      }
+    }
+    return max.get();
+  }
+
+  /**
+   * Get the bucket of a value: values below SUB_BUCKETS each
+   *  have their own, above that the bucket is picked by the
+   *  highest bit and the SUB_BITS bits after it.
+   * @param value  non-negative value
+   * @return  bucket index
+   */
+  private static int index(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+    int sub = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+    return (shift + 1) * SUB_BUCKETS + sub;
+  }
+
+  private static long upperBound(int index) {
+    if (index < SUB_BUCKETS) {
+      return index;
+    }
+    int shift = index / SUB_BUCKETS - 1;
+    long low = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+    return low + (1L << shift) - 1;
+  }
+
+}
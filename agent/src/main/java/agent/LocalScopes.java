@@ -0,0 +1,86 @@
+package agent;
+
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.InsnList;
+import org.objectweb.asm.tree.LocalVariableNode;
+import org.objectweb.asm.tree.MethodNode;
+import org.objectweb.asm.tree.VarInsnNode;
+
+import java.util.List;
+
+/* Resolves the local variable each load/store of a method refers to from
+   the start/end labels of its LocalVariableTable, since javac reuses a
+   slot for variables in disjoint scopes. A variable's scope only starts
+   after the store that initializes it, so a store is first matched
+   against the scope of the instruction that follows it. */
+class LocalScopes {
+
+  static final int UNKNOWN = -1;
+
+  /**
+   * Resolve the variable of every VarInsnNode of a method.
+   * @param method  buffered method
+   * @param locals  registered variables, in the order of method.localVariables
+   * @return  variable id (or UNKNOWN) of each VarInsnNode, in code order
+   */
+  static int[] resolve(MethodNode method, List<LocalVariable> locals) {
+    InsnList insns = method.instructions;
+    int count = 0;
+    for (AbstractInsnNode insn = insns.getFirst(); insn != null; insn = insn.getNext()) {
+      if (insn.getType() == AbstractInsnNode.VAR_INSN) {
+        count++;
+      }
+    }
+
+    int[] ids = new int[count];
+    int next = 0;
+    for (AbstractInsnNode insn = insns.getFirst(); insn != null; insn = insn.getNext()) {
+      if (insn.getType() != AbstractInsnNode.VAR_INSN) {
+        continue;
+      }
+      int slot = ((VarInsnNode) insn).var;
+      int at = insns.indexOf(insn);
+      int id = UNKNOWN;
+      if (insn.getOpcode() >= Opcodes.ISTORE && insn.getOpcode() <= Opcodes.ASTORE) {
+        id = find(method, locals, slot, nextInsnIndex(insns, insn));
+      }
+      if (id == UNKNOWN) {
+        id = find(method, locals, slot, at);
+      }
+      ids[next++] = id;
+    }
+    return ids;
+  }
+
+  /**
+   * Find the variable in a slot whose scope covers an instruction.
+   * @param method  buffered method
+   * @param locals  registered variables
+   * @param slot    local variable index
+   * @param at      instruction index
+   * @return  variable id or UNKNOWN
+   */
+  private static int find(MethodNode method, List<LocalVariable> locals, int slot, int at) {
+    InsnList insns = method.instructions;
+    for (int i = 0; i < method.localVariables.size(); i++) {
+      LocalVariableNode local = method.localVariables.get(i);
+      if (local.index == slot
+          && insns.indexOf(local.start) <= at
+          && at < insns.indexOf(local.end)) {
+        return locals.get(i).id;
+      }
+    }
+    return UNKNOWN;
+  }
+
+  private static int nextInsnIndex(InsnList insns, AbstractInsnNode insn) {
+    for (AbstractInsnNode next = insn.getNext(); next != null; next = next.getNext()) {
+      if (next.getOpcode() >= 0) {
+        return insns.indexOf(next);
+      }
+    }
+    return insns.size();
+  }
+
+}
@@ -6,6 +6,8 @@ public class LocalVariable {
   int index;
   String name;
   String desc;
+  int id = -1;
+  private MethodProtos.MethodCall.Instruction.Variable proto;
 
   LocalVariable(LocalVariable local) {
     this(local.index, local.name, local.desc);
@@ -21,6 +23,38 @@ public class LocalVariable {
     this.desc = desc;
   }
 
+  /**
+   * Get this variable as a protobuf message, built once
+   *  and shared by every instruction that references it.
+   * @return  variable message
+   */
+  MethodProtos.MethodCall.Instruction.Variable toProto() {
+    if (proto == null) {
+      proto = MethodProtos.MethodCall.Instruction.Variable.newBuilder()
+          .setName(name)
+          .setIndex(index)
+          .setType(desc)
+          .build();
+    }
+    return proto;
+  }
+
+  /**
+   * Start building a read/write instruction of this variable.
+   * @param type  READ or WRITE
+   * @param line  line number
+   * @return  instruction builder without a value
+   */
+  MethodProtos.MethodCall.Instruction.Builder instructionBuilder(
+      MethodProtos.MethodCall.InstructionType type,
+      int line
+  ) {
+    return MethodProtos.MethodCall.Instruction.newBuilder()
+        .setType(type)
+        .setVariable(toProto())
+        .setLinenum(line);
+  }
+
   @Override
   public String toString() {
     return "index: " + index + "  name: " + name + " desc: " + desc;
@@ -0,0 +1,95 @@
+package agent;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/* Trace file written through memory-mapped segments. Records are copied
+   straight into the page cache and the header's committed position is
+   bumped after each one, so everything written before a kill -9 is
+   kept and a reader knows where the valid data ends. */
+class MappedOutputStream extends OutputStream {
+
+  // first byte is 0, which no tree or event file can start with
+  static final int MAGIC = 0x0041504D;
+  static final int VERSION = 1;
+  static final int HEADER_SIZE = 16;
+  static final int POSITION_OFFSET = 8;
+
+  private final FileChannel channel;
+  private final MappedByteBuffer header;
+  private final long segmentSize;
+
+  private MappedByteBuffer segment;
+  private long position;
+  private boolean closed;
+
+  /**
+   * Creates (truncating) a memory-mapped trace file.
+   * @param file         trace file
+   * @param segmentSize  bytes mapped at a time
+   */
+  MappedOutputStream(File file, long segmentSize) throws IOException {
+    RandomAccessFile raf = new RandomAccessFile(file, "rw");
+    raf.setLength(0);
+    this.channel = raf.getChannel();
+    this.segmentSize = segmentSize;
+
+    this.header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+    header.putInt(0, MAGIC);
+    header.putInt(4, VERSION);
+    header.putLong(POSITION_OFFSET, HEADER_SIZE);
+
+    this.position = HEADER_SIZE;
+    this.segment = channel.map(FileChannel.MapMode.READ_WRITE, position, segmentSize);
+    this.closed = false;
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    write(new byte[] { (byte) b }, 0, 1);
+  }
+
+  /**
+   * Append one record and commit it in the header.
+   */
+  @Override
+  public synchronized void write(byte[] b, int off, int len) throws IOException {
+    if (closed) {
+      return;
+    }
+
+    if (len > segment.remaining()) {
+      // map the next segment from the current position
+      segment = channel.map(FileChannel.MapMode.READ_WRITE, position, Math.max(segmentSize, len));
+    }
+
+    segment.put(b, off, len);
+    position += len;
+    header.putLong(POSITION_OFFSET, position);
+  }
+
+  /**
+   * Nothing to do, the OS writes back mapped pages on its own.
+   */
+  @Override
+  public void flush() {}
+
+  /**
+   * Trim the unused end of the last segment and close the file.
+   */
+  @Override
+  public synchronized void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    segment = null;
+    channel.truncate(position);
+    channel.close();
+  }
+
+}
@@ -12,12 +12,15 @@ class MethodCallNode {
   private MethodCallNode parent;
   private MethodProtos.MethodCall.CallerInfo caller;
   private List<MethodCallNode> calls;
-  private List<MethodProtos.MethodCall.Instruction> instructions;
+  private InstructionStore store;
+  private int firstInstruction;
+  private int lastInstruction;
 
   private List<String> paramValues;
   private long duration;
   private long newThreadId;
   private String returnValue;
+  private String exception;
 
   public MethodCallNode(int depth, String signature, String... paramValues) {
     this(depth, signature, MethodProtos.MethodCall.MethodCallType.NORMAL, paramValues);
@@ -29,7 +32,8 @@ class MethodCallNode {
     this.type = type;
     this.paramValues = new ArrayList<>(Arrays.asList(paramValues));
     calls = new ArrayList<>();
-    instructions = new ArrayList<>();
+    firstInstruction = InstructionStore.NONE;
+    lastInstruction = InstructionStore.NONE;
   }
 
   public int getDepth() {
@@ -79,12 +83,21 @@ class MethodCallNode {
     this.calls = calls;
   }
 
-  public List<MethodProtos.MethodCall.Instruction> getInstructions() {
-    return instructions;
+  public int getLastInstruction() {
+    return lastInstruction;
   }
 
-  public void setInstructions(List<MethodProtos.MethodCall.Instruction> instructions) {
-    this.instructions = instructions;
+  /**
+   * Append an instruction record, linked to the last one.
+   * @param store   store of the thread making the call
+   * @param record  index of the record in the store
+   */
+  public void addInstruction(InstructionStore store, int record) {
+    this.store = store;
+    if (firstInstruction == InstructionStore.NONE) {
+      firstInstruction = record;
+    }
+    lastInstruction = record;
   }
 
   public long getDuration() {
@@ -111,6 +124,14 @@ class MethodCallNode {
     this.returnValue = returnValue;
   }
 
+  public String getException() {
+    return exception;
+  }
+
+  public void setException(String exception) {
+    this.exception = exception;
+  }
+
   public MethodProtos.MethodCall toProto() {
     MethodProtos.MethodCall.Builder builder =
         MethodProtos.MethodCall.newBuilder()
@@ -118,7 +139,7 @@ class MethodCallNode {
         .setType(type)
         .addAllParamValues(paramValues)
         .addAllCalls(callsToProto())
-        .addAllInstructions(instructions)
+        .addAllInstructions(instructionsToProto())
         .setDuration(duration)
         .setDepth(depth);
 
@@ -134,9 +155,20 @@ class MethodCallNode {
       builder.setReturnValue(returnValue);
     }
 
+    if (exception != null) {
+      builder.setException(exception);
+    }
+
     return builder.build();
   }
 
+  public List<MethodProtos.MethodCall.Instruction> instructionsToProto() {
+    if (store == null) {
+      return new ArrayList<>();
+    }
+    return store.toProto(firstInstruction, calls);
+  }
+
   public List<MethodProtos.MethodCall> callsToProto() {
     List<MethodProtos.MethodCall> list = new ArrayList<>();
     for (MethodCallNode mc : calls) {
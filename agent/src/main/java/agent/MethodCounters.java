@@ -0,0 +1,81 @@
+package agent;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/* Call counters of count-only methods, the lightest instrumentation
+   tier: the only probe is increment(methodId), no logger, timestamps or
+   locals. Each method gets a LongAdder when it is instrumented, whose
+   striped cells keep threads that call it at once from contending.
+   The counts are written to counts.txt on shutdown. */
+public class MethodCounters {
+
+  static final String FILE_NAME = "counts.txt";
+
+  private static final int INITIAL_SIZE = 1024;
+
+  private static volatile LongAdder[] counters = new LongAdder[INITIAL_SIZE];
+
+  /**
+   * Create the counter of a method, before any code that
+   *  increments it is defined.
+   * @param methodId  id of the method
+   */
+  static synchronized void register(int methodId) {
+    LongAdder[] table = counters;
+    if (methodId >= table.length) {
+      table = Arrays.copyOf(table, Math.max(table.length * 2, methodId + 1));
+    }
+    if (table[methodId] == null) {
+      table[methodId] = new LongAdder();
+    }
+    counters = table;
+  }
+
+  /**
+   * Count a call, called by count-only methods on entry.
+   * @param methodId  id of the method
+   */
+  public static void increment(int methodId) {
+    LongAdder[] table = counters;
+    if (methodId < table.length && table[methodId] != null) {
+      table[methodId].increment();
+    } else {
+      // loaded from the class cache, which doesn't register counters
+      register(methodId);
+      counters[methodId].increment();
+    }
+  }
+
+  /**
+   * Write the count of every registered method.
+   * @param dir  trace output directory
+   */
+  static synchronized void shutdown(String dir) {
+    LongAdder[] table = counters;
+    boolean any = false;
+    for (LongAdder counter : table) {
+      any |= counter != null;
+    }
+    if (!any) {
+      return;
+    }
+
+    File file = new File(dir, FILE_NAME);
+    file.getParentFile().mkdirs();
+    try (PrintStream out = new PrintStream(file, "UTF-8")) {
+      out.println("# method\tcalls");
+      for (int id = 0; id < table.length; id++) {
+        if (table[id] != null) {
+          out.println(TraceDictionary.getMethod(id) + "\t" + table[id].sum());
+        }
+      }
+    } catch (IOException e) {
+      System.out.println("ERROR : " + e);
+    }
+  }
+
+}
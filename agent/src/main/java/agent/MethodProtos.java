@@ -141,6 +141,24 @@ public final class MethodProtos {
      */
     com.google.protobuf.ByteString
         getReturnValueBytes();
+
+    /**
+     * <pre>
+     * class of the exception the call exited with, if it threw
+     * </pre>
+     *
+     * <code>string exception = 11;</code>
+     */
+    java.lang.String getException();
+    /**
+     * <pre>
+     * class of the exception the call exited with, if it threw
+     * </pre>
+     *
+     * <code>string exception = 11;</code>
+     */
+    com.google.protobuf.ByteString
+        getExceptionBytes();
   }
   /**
    * Protobuf type {@code agent.MethodCall}
@@ -164,6 +182,7 @@ public final class MethodProtos {
       depth_ = 0;
       paramValues_ = com.google.protobuf.LazyStringArrayList.EMPTY;
       returnValue_ = "";
+      exception_ = "";
     }
 
     @java.lang.Override
@@ -190,13 +209,6 @@ public final class MethodProtos {
             case 0:
               done = true;
               break;
-            default: {
-              if (!parseUnknownFieldProto3(
-                  input, unknownFields, extensionRegistry, tag)) {
-                done = true;
-              }
-              break;
-            }
             case 10: {
               java.lang.String s = input.readStringRequireUtf8();
 
@@ -270,6 +282,19 @@ public final class MethodProtos {
               returnValue_ = s;
               break;
             }
+            case 90: {
+              java.lang.String s = input.readStringRequireUtf8();
+
+              exception_ = s;
+              break;
+            }
+            default: {
+              if (!parseUnknownFieldProto3(
+                  input, unknownFields, extensionRegistry, tag)) {
+                done = true;
+              }
+              break;
+            }
           }
         }
       } catch (com.google.protobuf.InvalidProtocolBufferException e) {
@@ -296,6 +321,7 @@ public final class MethodProtos {
       return agent.MethodProtos.internal_static_agent_MethodCall_descriptor;
     }
 
+    @java.lang.Override
     protected com.google.protobuf.GeneratedMessageV3.FieldAccessorTable
         internalGetFieldAccessorTable() {
       return agent.MethodProtos.internal_static_agent_MethodCall_fieldAccessorTable
@@ -568,13 +594,6 @@ public final class MethodProtos {
               case 0:
                 done = true;
                 break;
-              default: {
-                if (!parseUnknownFieldProto3(
-                    input, unknownFields, extensionRegistry, tag)) {
-                  done = true;
-                }
-                break;
-              }
               case 10: {
                 java.lang.String s = input.readStringRequireUtf8();
 
@@ -586,6 +605,13 @@ public final class MethodProtos {
                 linenum_ = input.readInt32();
                 break;
               }
+              default: {
+                if (!parseUnknownFieldProto3(
+                    input, unknownFields, extensionRegistry, tag)) {
+                  done = true;
+                }
+                break;
+              }
             }
           }
         } catch (com.google.protobuf.InvalidProtocolBufferException e) {
@@ -603,6 +629,7 @@ public final class MethodProtos {
         return agent.MethodProtos.internal_static_agent_MethodCall_CallerInfo_descriptor;
       }
 
+      @java.lang.Override
       protected com.google.protobuf.GeneratedMessageV3.FieldAccessorTable
           internalGetFieldAccessorTable() {
         return agent.MethodProtos.internal_static_agent_MethodCall_CallerInfo_fieldAccessorTable
@@ -654,6 +681,7 @@ public final class MethodProtos {
       }
 
       private byte memoizedIsInitialized = -1;
+      @java.lang.Override
       public final boolean isInitialized() {
         byte isInitialized = memoizedIsInitialized;
         if (isInitialized == 1) return true;
@@ -663,6 +691,7 @@ public final class MethodProtos {
         return true;
       }
 
+      @java.lang.Override
       public void writeTo(com.google.protobuf.CodedOutputStream output)
                           throws java.io.IOException {
         if (!getFilenameBytes().isEmpty()) {
@@ -674,6 +703,7 @@ public final class MethodProtos {
         unknownFields.writeTo(output);
       }
 
+      @java.lang.Override
       public int getSerializedSize() {
         int size = memoizedSize;
         if (size != -1) return size;
@@ -796,6 +826,7 @@ public final class MethodProtos {
             .parseWithIOException(PARSER, input, extensionRegistry);
       }
 
+      @java.lang.Override
       public Builder newBuilderForType() { return newBuilder(); }
       public static Builder newBuilder() {
         return DEFAULT_INSTANCE.toBuilder();
@@ -803,6 +834,7 @@ public final class MethodProtos {
       public static Builder newBuilder(agent.MethodProtos.MethodCall.CallerInfo prototype) {
         return DEFAULT_INSTANCE.toBuilder().mergeFrom(prototype);
       }
+      @java.lang.Override
       public Builder toBuilder() {
         return this == DEFAULT_INSTANCE
             ? new Builder() : new Builder().mergeFrom(this);
@@ -826,6 +858,7 @@ public final class MethodProtos {
           return agent.MethodProtos.internal_static_agent_MethodCall_CallerInfo_descriptor;
         }
 
+        @java.lang.Override
         protected com.google.protobuf.GeneratedMessageV3.FieldAccessorTable
             internalGetFieldAccessorTable() {
           return agent.MethodProtos.internal_static_agent_MethodCall_CallerInfo_fieldAccessorTable
@@ -848,6 +881,7 @@ public final class MethodProtos {
                   .alwaysUseFieldBuilders) {
           }
         }
+        @java.lang.Override
         public Builder clear() {
           super.clear();
           filename_ = "";
@@ -857,15 +891,18 @@ public final class MethodProtos {
           return this;
         }
 
+        @java.lang.Override
         public com.google.protobuf.Descriptors.Descriptor
             getDescriptorForType() {
           return agent.MethodProtos.internal_static_agent_MethodCall_CallerInfo_descriptor;
         }
 
+        @java.lang.Override
         public agent.MethodProtos.MethodCall.CallerInfo getDefaultInstanceForType() {
           return agent.MethodProtos.MethodCall.CallerInfo.getDefaultInstance();
         }
 
+        @java.lang.Override
         public agent.MethodProtos.MethodCall.CallerInfo build() {
           agent.MethodProtos.MethodCall.CallerInfo result = buildPartial();
           if (!result.isInitialized()) {
@@ -874,6 +911,7 @@ public final class MethodProtos {
           return result;
         }
 
+        @java.lang.Override
         public agent.MethodProtos.MethodCall.CallerInfo buildPartial() {
           agent.MethodProtos.MethodCall.CallerInfo result = new agent.MethodProtos.MethodCall.CallerInfo(this);
           result.filename_ = filename_;
@@ -882,32 +920,39 @@ public final class MethodProtos {
           return result;
         }
 
+        @java.lang.Override
         public Builder clone() {
           return (Builder) super.clone();
         }
+        @java.lang.Override
         public Builder setField(
             com.google.protobuf.Descriptors.FieldDescriptor field,
             java.lang.Object value) {
           return (Builder) super.setField(field, value);
         }
+        @java.lang.Override
         public Builder clearField(
             com.google.protobuf.Descriptors.FieldDescriptor field) {
           return (Builder) super.clearField(field);
         }
+        @java.lang.Override
         public Builder clearOneof(
             com.google.protobuf.Descriptors.OneofDescriptor oneof) {
           return (Builder) super.clearOneof(oneof);
         }
+        @java.lang.Override
         public Builder setRepeatedField(
             com.google.protobuf.Descriptors.FieldDescriptor field,
             int index, java.lang.Object value) {
           return (Builder) super.setRepeatedField(field, index, value);
         }
+        @java.lang.Override
         public Builder addRepeatedField(
             com.google.protobuf.Descriptors.FieldDescriptor field,
             java.lang.Object value) {
           return (Builder) super.addRepeatedField(field, value);
         }
+        @java.lang.Override
         public Builder mergeFrom(com.google.protobuf.Message other) {
           if (other instanceof agent.MethodProtos.MethodCall.CallerInfo) {
             return mergeFrom((agent.MethodProtos.MethodCall.CallerInfo)other);
@@ -931,10 +976,12 @@ public final class MethodProtos {
           return this;
         }
 
+        @java.lang.Override
         public final boolean isInitialized() {
           return true;
         }
 
+        @java.lang.Override
         public Builder mergeFrom(
             com.google.protobuf.CodedInputStream input,
             com.google.protobuf.ExtensionRegistryLite extensionRegistry)
@@ -1047,11 +1094,13 @@ public final class MethodProtos {
           onChanged();
           return this;
         }
+        @java.lang.Override
         public final Builder setUnknownFields(
             final com.google.protobuf.UnknownFieldSet unknownFields) {
           return super.setUnknownFieldsProto3(unknownFields);
         }
 
+        @java.lang.Override
         public final Builder mergeUnknownFields(
             final com.google.protobuf.UnknownFieldSet unknownFields) {
           return super.mergeUnknownFields(unknownFields);
@@ -1073,6 +1122,7 @@ public final class MethodProtos {
 
       private static final com.google.protobuf.Parser<CallerInfo>
           PARSER = new com.google.protobuf.AbstractParser<CallerInfo>() {
+        @java.lang.Override
         public CallerInfo parsePartialFrom(
             com.google.protobuf.CodedInputStream input,
             com.google.protobuf.ExtensionRegistryLite extensionRegistry)
@@ -1090,6 +1140,7 @@ public final class MethodProtos {
         return PARSER;
       }
 
+      @java.lang.Override
       public agent.MethodProtos.MethodCall.CallerInfo getDefaultInstanceForType() {
         return DEFAULT_INSTANCE;
       }
@@ -1146,6 +1197,20 @@ public final class MethodProtos {
        */
       com.google.protobuf.ByteString
           getCallSignatureBytes();
+
+      /**
+       * <pre>
+       * raw values of primitive locals, formatted by the reader using variable.type
+       * </pre>
+       *
+       * <code>sint64 long_value = 6;</code>
+       */
+      long getLongValue();
+
+      /**
+       * <code>double double_value = 7;</code>
+       */
+      double getDoubleValue();
     }
     /**
      * Protobuf type {@code agent.MethodCall.Instruction}
@@ -1164,6 +1229,8 @@ public final class MethodProtos {
         value_ = "";
         linenum_ = 0;
         callSignature_ = "";
+        longValue_ = 0L;
+        doubleValue_ = 0D;
       }
 
       @java.lang.Override
@@ -1190,13 +1257,6 @@ public final class MethodProtos {
               case 0:
                 done = true;
                 break;
-              default: {
-                if (!parseUnknownFieldProto3(
-                    input, unknownFields, extensionRegistry, tag)) {
-                  done = true;
-                }
-                break;
-              }
               case 8: {
                 int rawValue = input.readEnum();
 
@@ -1233,6 +1293,23 @@ public final class MethodProtos {
                 callSignature_ = s;
                 break;
               }
+              case 48: {
+
+                longValue_ = input.readSInt64();
+                break;
+              }
+              case 57: {
+
+                doubleValue_ = input.readDouble();
+                break;
+              }
+              default: {
+                if (!parseUnknownFieldProto3(
+                    input, unknownFields, extensionRegistry, tag)) {
+                  done = true;
+                }
+                break;
+              }
             }
           }
         } catch (com.google.protobuf.InvalidProtocolBufferException e) {
@@ -1250,6 +1327,7 @@ public final class MethodProtos {
         return agent.MethodProtos.internal_static_agent_MethodCall_Instruction_descriptor;
       }
 
+      @java.lang.Override
       protected com.google.protobuf.GeneratedMessageV3.FieldAccessorTable
           internalGetFieldAccessorTable() {
         return agent.MethodProtos.internal_static_agent_MethodCall_Instruction_fieldAccessorTable
@@ -1328,13 +1406,6 @@ public final class MethodProtos {
                 case 0:
                   done = true;
                   break;
-                default: {
-                  if (!parseUnknownFieldProto3(
-                      input, unknownFields, extensionRegistry, tag)) {
-                    done = true;
-                  }
-                  break;
-                }
                 case 8: {
 
                   index_ = input.readInt32();
@@ -1352,6 +1423,13 @@ public final class MethodProtos {
                   type_ = s;
                   break;
                 }
+                default: {
+                  if (!parseUnknownFieldProto3(
+                      input, unknownFields, extensionRegistry, tag)) {
+                    done = true;
+                  }
+                  break;
+                }
               }
             }
           } catch (com.google.protobuf.InvalidProtocolBufferException e) {
@@ -1369,6 +1447,7 @@ public final class MethodProtos {
           return agent.MethodProtos.internal_static_agent_MethodCall_Instruction_Variable_descriptor;
         }
 
+        @java.lang.Override
         protected com.google.protobuf.GeneratedMessageV3.FieldAccessorTable
             internalGetFieldAccessorTable() {
           return agent.MethodProtos.internal_static_agent_MethodCall_Instruction_Variable_fieldAccessorTable
@@ -1454,6 +1533,7 @@ public final class MethodProtos {
         }
 
         private byte memoizedIsInitialized = -1;
+        @java.lang.Override
         public final boolean isInitialized() {
           byte isInitialized = memoizedIsInitialized;
           if (isInitialized == 1) return true;
@@ -1463,6 +1543,7 @@ public final class MethodProtos {
           return true;
         }
 
+        @java.lang.Override
         public void writeTo(com.google.protobuf.CodedOutputStream output)
                             throws java.io.IOException {
           if (index_ != 0) {
@@ -1477,6 +1558,7 @@ public final class MethodProtos {
           unknownFields.writeTo(output);
         }
 
+        @java.lang.Override
         public int getSerializedSize() {
           int size = memoizedSize;
           if (size != -1) return size;
@@ -1606,6 +1688,7 @@ public final class MethodProtos {
               .parseWithIOException(PARSER, input, extensionRegistry);
         }
 
+        @java.lang.Override
         public Builder newBuilderForType() { return newBuilder(); }
         public static Builder newBuilder() {
           return DEFAULT_INSTANCE.toBuilder();
@@ -1613,6 +1696,7 @@ public final class MethodProtos {
         public static Builder newBuilder(agent.MethodProtos.MethodCall.Instruction.Variable prototype) {
           return DEFAULT_INSTANCE.toBuilder().mergeFrom(prototype);
         }
+        @java.lang.Override
         public Builder toBuilder() {
           return this == DEFAULT_INSTANCE
               ? new Builder() : new Builder().mergeFrom(this);
@@ -1636,6 +1720,7 @@ public final class MethodProtos {
             return agent.MethodProtos.internal_static_agent_MethodCall_Instruction_Variable_descriptor;
           }
 
+          @java.lang.Override
           protected com.google.protobuf.GeneratedMessageV3.FieldAccessorTable
               internalGetFieldAccessorTable() {
             return agent.MethodProtos.internal_static_agent_MethodCall_Instruction_Variable_fieldAccessorTable
@@ -1658,6 +1743,7 @@ public final class MethodProtos {
                     .alwaysUseFieldBuilders) {
             }
           }
+          @java.lang.Override
           public Builder clear() {
             super.clear();
             index_ = 0;
@@ -1669,15 +1755,18 @@ public final class MethodProtos {
             return this;
           }
 
+          @java.lang.Override
           public com.google.protobuf.Descriptors.Descriptor
               getDescriptorForType() {
             return agent.MethodProtos.internal_static_agent_MethodCall_Instruction_Variable_descriptor;
           }
 
+          @java.lang.Override
           public agent.MethodProtos.MethodCall.Instruction.Variable getDefaultInstanceForType() {
             return agent.MethodProtos.MethodCall.Instruction.Variable.getDefaultInstance();
           }
 
+          @java.lang.Override
           public agent.MethodProtos.MethodCall.Instruction.Variable build() {
             agent.MethodProtos.MethodCall.Instruction.Variable result = buildPartial();
             if (!result.isInitialized()) {
@@ -1686,6 +1775,7 @@ public final class MethodProtos {
             return result;
           }
 
+          @java.lang.Override
           public agent.MethodProtos.MethodCall.Instruction.Variable buildPartial() {
             agent.MethodProtos.MethodCall.Instruction.Variable result = new agent.MethodProtos.MethodCall.Instruction.Variable(this);
             result.index_ = index_;
@@ -1695,32 +1785,39 @@ public final class MethodProtos {
             return result;
           }
 
+          @java.lang.Override
           public Builder clone() {
             return (Builder) super.clone();
           }
+          @java.lang.Override
           public Builder setField(
               com.google.protobuf.Descriptors.FieldDescriptor field,
               java.lang.Object value) {
             return (Builder) super.setField(field, value);
           }
+          @java.lang.Override
           public Builder clearField(
               com.google.protobuf.Descriptors.FieldDescriptor field) {
             return (Builder) super.clearField(field);
           }
+          @java.lang.Override
           public Builder clearOneof(
               com.google.protobuf.Descriptors.OneofDescriptor oneof) {
             return (Builder) super.clearOneof(oneof);
           }
+          @java.lang.Override
           public Builder setRepeatedField(
               com.google.protobuf.Descriptors.FieldDescriptor field,
               int index, java.lang.Object value) {
             return (Builder) super.setRepeatedField(field, index, value);
           }
+          @java.lang.Override
           public Builder addRepeatedField(
               com.google.protobuf.Descriptors.FieldDescriptor field,
               java.lang.Object value) {
             return (Builder) super.addRepeatedField(field, value);
           }
+          @java.lang.Override
           public Builder mergeFrom(com.google.protobuf.Message other) {
             if (other instanceof agent.MethodProtos.MethodCall.Instruction.Variable) {
               return mergeFrom((agent.MethodProtos.MethodCall.Instruction.Variable)other);
@@ -1748,10 +1845,12 @@ public final class MethodProtos {
             return this;
           }
 
+          @java.lang.Override
           public final boolean isInitialized() {
             return true;
           }
 
+          @java.lang.Override
           public Builder mergeFrom(
               com.google.protobuf.CodedInputStream input,
               com.google.protobuf.ExtensionRegistryLite extensionRegistry)
@@ -1933,11 +2032,13 @@ public final class MethodProtos {
             onChanged();
             return this;
           }
+          @java.lang.Override
           public final Builder setUnknownFields(
               final com.google.protobuf.UnknownFieldSet unknownFields) {
             return super.setUnknownFieldsProto3(unknownFields);
           }
 
+          @java.lang.Override
           public final Builder mergeUnknownFields(
               final com.google.protobuf.UnknownFieldSet unknownFields) {
             return super.mergeUnknownFields(unknownFields);
@@ -1959,6 +2060,7 @@ public final class MethodProtos {
 
         private static final com.google.protobuf.Parser<Variable>
             PARSER = new com.google.protobuf.AbstractParser<Variable>() {
+          @java.lang.Override
           public Variable parsePartialFrom(
               com.google.protobuf.CodedInputStream input,
               com.google.protobuf.ExtensionRegistryLite extensionRegistry)
@@ -1976,6 +2078,7 @@ public final class MethodProtos {
           return PARSER;
         }
 
+        @java.lang.Override
         public agent.MethodProtos.MethodCall.Instruction.Variable getDefaultInstanceForType() {
           return DEFAULT_INSTANCE;
         }
@@ -1994,6 +2097,7 @@ public final class MethodProtos {
        * <code>.agent.MethodCall.InstructionType type = 1;</code>
        */
       public agent.MethodProtos.MethodCall.InstructionType getType() {
+        @SuppressWarnings("deprecation")
         agent.MethodProtos.MethodCall.InstructionType result = agent.MethodProtos.MethodCall.InstructionType.valueOf(type_);
         return result == null ? agent.MethodProtos.MethodCall.InstructionType.UNRECOGNIZED : result;
       }
@@ -2096,7 +2200,30 @@ public final class MethodProtos {
         }
       }
 
+      public static final int LONG_VALUE_FIELD_NUMBER = 6;
+      private long longValue_;
+      /**
+       * <pre>
+       * raw values of primitive locals, formatted by the reader using variable.type
+       * </pre>
+       *
+       * <code>sint64 long_value = 6;</code>
+       */
+      public long getLongValue() {
+        return longValue_;
+      }
+
+      public static final int DOUBLE_VALUE_FIELD_NUMBER = 7;
+      private double doubleValue_;
+      /**
+       * <code>double double_value = 7;</code>
+       */
+      public double getDoubleValue() {
+        return doubleValue_;
+      }
+
       private byte memoizedIsInitialized = -1;
+      @java.lang.Override
       public final boolean isInitialized() {
         byte isInitialized = memoizedIsInitialized;
         if (isInitialized == 1) return true;
@@ -2106,6 +2233,7 @@ public final class MethodProtos {
         return true;
       }
 
+      @java.lang.Override
       public void writeTo(com.google.protobuf.CodedOutputStream output)
                           throws java.io.IOException {
         if (type_ != agent.MethodProtos.MethodCall.InstructionType.READ.getNumber()) {
@@ -2123,9 +2251,16 @@ public final class MethodProtos {
         if (!getCallSignatureBytes().isEmpty()) {
           com.google.protobuf.GeneratedMessageV3.writeString(output, 5, callSignature_);
         }
+        if (longValue_ != 0L) {
+          output.writeSInt64(6, longValue_);
+        }
+        if (doubleValue_ != 0D) {
+          output.writeDouble(7, doubleValue_);
+        }
         unknownFields.writeTo(output);
       }
 
+      @java.lang.Override
       public int getSerializedSize() {
         int size = memoizedSize;
         if (size != -1) return size;
@@ -2149,6 +2284,14 @@ public final class MethodProtos {
         if (!getCallSignatureBytes().isEmpty()) {
           size += com.google.protobuf.GeneratedMessageV3.computeStringSize(5, callSignature_);
         }
+        if (longValue_ != 0L) {
+          size += com.google.protobuf.CodedOutputStream
+            .computeSInt64Size(6, longValue_);
+        }
+        if (doubleValue_ != 0D) {
+          size += com.google.protobuf.CodedOutputStream
+            .computeDoubleSize(7, doubleValue_);
+        }
         size += unknownFields.getSerializedSize();
         memoizedSize = size;
         return size;
@@ -2177,6 +2320,12 @@ public final class MethodProtos {
             == other.getLinenum());
         result = result && getCallSignature()
             .equals(other.getCallSignature());
+        result = result && (getLongValue()
+            == other.getLongValue());
+        result = result && (
+            java.lang.Double.doubleToLongBits(getDoubleValue())
+            == java.lang.Double.doubleToLongBits(
+                other.getDoubleValue()));
         result = result && unknownFields.equals(other.unknownFields);
         return result;
       }
@@ -2200,6 +2349,12 @@ public final class MethodProtos {
         hash = (53 * hash) + getLinenum();
         hash = (37 * hash) + CALL_SIGNATURE_FIELD_NUMBER;
         hash = (53 * hash) + getCallSignature().hashCode();
+        hash = (37 * hash) + LONG_VALUE_FIELD_NUMBER;
+        hash = (53 * hash) + com.google.protobuf.Internal.hashLong(
+            getLongValue());
+        hash = (37 * hash) + DOUBLE_VALUE_FIELD_NUMBER;
+        hash = (53 * hash) + com.google.protobuf.Internal.hashLong(
+            java.lang.Double.doubleToLongBits(getDoubleValue()));
         hash = (29 * hash) + unknownFields.hashCode();
         memoizedHashCode = hash;
         return hash;
@@ -2275,6 +2430,7 @@ public final class MethodProtos {
             .parseWithIOException(PARSER, input, extensionRegistry);
       }
 
+      @java.lang.Override
       public Builder newBuilderForType() { return newBuilder(); }
       public static Builder newBuilder() {
         return DEFAULT_INSTANCE.toBuilder();
@@ -2282,6 +2438,7 @@ public final class MethodProtos {
       public static Builder newBuilder(agent.MethodProtos.MethodCall.Instruction prototype) {
         return DEFAULT_INSTANCE.toBuilder().mergeFrom(prototype);
       }
+      @java.lang.Override
       public Builder toBuilder() {
         return this == DEFAULT_INSTANCE
             ? new Builder() : new Builder().mergeFrom(this);
@@ -2305,6 +2462,7 @@ public final class MethodProtos {
           return agent.MethodProtos.internal_static_agent_MethodCall_Instruction_descriptor;
         }
 
+        @java.lang.Override
         protected com.google.protobuf.GeneratedMessageV3.FieldAccessorTable
             internalGetFieldAccessorTable() {
           return agent.MethodProtos.internal_static_agent_MethodCall_Instruction_fieldAccessorTable
@@ -2327,6 +2485,7 @@ public final class MethodProtos {
                   .alwaysUseFieldBuilders) {
           }
         }
+        @java.lang.Override
         public Builder clear() {
           super.clear();
           type_ = 0;
@@ -2343,18 +2502,25 @@ public final class MethodProtos {
 
           callSignature_ = "";
 
+          longValue_ = 0L;
+
+          doubleValue_ = 0D;
+
           return this;
         }
 
+        @java.lang.Override
         public com.google.protobuf.Descriptors.Descriptor
             getDescriptorForType() {
           return agent.MethodProtos.internal_static_agent_MethodCall_Instruction_descriptor;
         }
 
+        @java.lang.Override
         public agent.MethodProtos.MethodCall.Instruction getDefaultInstanceForType() {
           return agent.MethodProtos.MethodCall.Instruction.getDefaultInstance();
         }
 
+        @java.lang.Override
         public agent.MethodProtos.MethodCall.Instruction build() {
           agent.MethodProtos.MethodCall.Instruction result = buildPartial();
           if (!result.isInitialized()) {
@@ -2363,6 +2529,7 @@ public final class MethodProtos {
           return result;
         }
 
+        @java.lang.Override
         public agent.MethodProtos.MethodCall.Instruction buildPartial() {
           agent.MethodProtos.MethodCall.Instruction result = new agent.MethodProtos.MethodCall.Instruction(this);
           result.type_ = type_;
@@ -2374,36 +2541,45 @@ public final class MethodProtos {
           result.value_ = value_;
           result.linenum_ = linenum_;
           result.callSignature_ = callSignature_;
+          result.longValue_ = longValue_;
+          result.doubleValue_ = doubleValue_;
           onBuilt();
           return result;
         }
 
+        @java.lang.Override
         public Builder clone() {
           return (Builder) super.clone();
         }
+        @java.lang.Override
         public Builder setField(
             com.google.protobuf.Descriptors.FieldDescriptor field,
             java.lang.Object value) {
           return (Builder) super.setField(field, value);
         }
+        @java.lang.Override
         public Builder clearField(
             com.google.protobuf.Descriptors.FieldDescriptor field) {
           return (Builder) super.clearField(field);
         }
+        @java.lang.Override
         public Builder clearOneof(
             com.google.protobuf.Descriptors.OneofDescriptor oneof) {
           return (Builder) super.clearOneof(oneof);
         }
+        @java.lang.Override
         public Builder setRepeatedField(
             com.google.protobuf.Descriptors.FieldDescriptor field,
             int index, java.lang.Object value) {
           return (Builder) super.setRepeatedField(field, index, value);
         }
+        @java.lang.Override
         public Builder addRepeatedField(
             com.google.protobuf.Descriptors.FieldDescriptor field,
             java.lang.Object value) {
           return (Builder) super.addRepeatedField(field, value);
         }
+        @java.lang.Override
         public Builder mergeFrom(com.google.protobuf.Message other) {
           if (other instanceof agent.MethodProtos.MethodCall.Instruction) {
             return mergeFrom((agent.MethodProtos.MethodCall.Instruction)other);
@@ -2432,15 +2608,23 @@ public final class MethodProtos {
             callSignature_ = other.callSignature_;
             onChanged();
           }
+          if (other.getLongValue() != 0L) {
+            setLongValue(other.getLongValue());
+          }
+          if (other.getDoubleValue() != 0D) {
+            setDoubleValue(other.getDoubleValue());
+          }
           this.mergeUnknownFields(other.unknownFields);
           onChanged();
           return this;
         }
 
+        @java.lang.Override
         public final boolean isInitialized() {
           return true;
         }
 
+        @java.lang.Override
         public Builder mergeFrom(
             com.google.protobuf.CodedInputStream input,
             com.google.protobuf.ExtensionRegistryLite extensionRegistry)
@@ -2478,6 +2662,7 @@ public final class MethodProtos {
          * <code>.agent.MethodCall.InstructionType type = 1;</code>
          */
         public agent.MethodProtos.MethodCall.InstructionType getType() {
+          @SuppressWarnings("deprecation")
           agent.MethodProtos.MethodCall.InstructionType result = agent.MethodProtos.MethodCall.InstructionType.valueOf(type_);
           return result == null ? agent.MethodProtos.MethodCall.InstructionType.UNRECOGNIZED : result;
         }
@@ -2783,11 +2968,77 @@ public final class MethodProtos {
           onChanged();
           return this;
         }
+
+        private long longValue_ ;
+        /**
+         * <pre>
+         * raw values of primitive locals, formatted by the reader using variable.type
+         * </pre>
+         *
+         * <code>sint64 long_value = 6;</code>
+         */
+        public long getLongValue() {
+          return longValue_;
+        }
+        /**
+         * <pre>
+         * raw values of primitive locals, formatted by the reader using variable.type
+         * </pre>
+         *
+         * <code>sint64 long_value = 6;</code>
+         */
+        public Builder setLongValue(long value) {
+          
+          longValue_ = value;
+          onChanged();
+          return this;
+        }
+        /**
+         * <pre>
+         * raw values of primitive locals, formatted by the reader using variable.type
+         * </pre>
+         *
+         * <code>sint64 long_value = 6;</code>
+         */
+        public Builder clearLongValue() {
+          
+          longValue_ = 0L;
+          onChanged();
+          return this;
+        }
+
+        private double doubleValue_ ;
+        /**
+         * <code>double double_value = 7;</code>
+         */
+        public double getDoubleValue() {
+          return doubleValue_;
+        }
+        /**
+         * <code>double double_value = 7;</code>
+         */
+        public Builder setDoubleValue(double value) {
+          
+          doubleValue_ = value;
+          onChanged();
+          return this;
+        }
+        /**
+         * <code>double double_value = 7;</code>
+         */
+        public Builder clearDoubleValue() {
+          
+          doubleValue_ = 0D;
+          onChanged();
+          return this;
+        }
+        @java.lang.Override
         public final Builder setUnknownFields(
             final com.google.protobuf.UnknownFieldSet unknownFields) {
           return super.setUnknownFieldsProto3(unknownFields);
         }
 
+        @java.lang.Override
         public final Builder mergeUnknownFields(
             final com.google.protobuf.UnknownFieldSet unknownFields) {
           return super.mergeUnknownFields(unknownFields);
@@ -2809,6 +3060,7 @@ public final class MethodProtos {
 
       private static final com.google.protobuf.Parser<Instruction>
           PARSER = new com.google.protobuf.AbstractParser<Instruction>() {
+        @java.lang.Override
         public Instruction parsePartialFrom(
             com.google.protobuf.CodedInputStream input,
             com.google.protobuf.ExtensionRegistryLite extensionRegistry)
@@ -2826,6 +3078,7 @@ public final class MethodProtos {
         return PARSER;
       }
 
+      @java.lang.Override
       public agent.MethodProtos.MethodCall.Instruction getDefaultInstanceForType() {
         return DEFAULT_INSTANCE;
       }
@@ -2879,6 +3132,7 @@ public final class MethodProtos {
      * <code>.agent.MethodCall.MethodCallType type = 2;</code>
      */
     public agent.MethodProtos.MethodCall.MethodCallType getType() {
+      @SuppressWarnings("deprecation")
       agent.MethodProtos.MethodCall.MethodCallType result = agent.MethodProtos.MethodCall.MethodCallType.valueOf(type_);
       return result == null ? agent.MethodProtos.MethodCall.MethodCallType.UNRECOGNIZED : result;
     }
@@ -3064,7 +3318,50 @@ public final class MethodProtos {
       }
     }
 
+    public static final int EXCEPTION_FIELD_NUMBER = 11;
+    private volatile java.lang.Object exception_;
+    /**
+     * <pre>
+     * class of the exception the call exited with, if it threw
+     * </pre>
+     *
+     * <code>string exception = 11;</code>
+     */
+    public java.lang.String getException() {
+      java.lang.Object ref = exception_;
+      if (ref instanceof java.lang.String) {
+        return (java.lang.String) ref;
+      } else {
+        com.google.protobuf.ByteString bs = 
+            (com.google.protobuf.ByteString) ref;
+        java.lang.String s = bs.toStringUtf8();
+        exception_ = s;
+        return s;
+      }
+    }
+    /**
+     * <pre>
+     * class of the exception the call exited with, if it threw
+     * </pre>
+     *
+     * <code>string exception = 11;</code>
+     */
+    public com.google.protobuf.ByteString
+        getExceptionBytes() {
+      java.lang.Object ref = exception_;
+      if (ref instanceof java.lang.String) {
+        com.google.protobuf.ByteString b = 
+            com.google.protobuf.ByteString.copyFromUtf8(
+                (java.lang.String) ref);
+        exception_ = b;
+        return b;
+      } else {
+        return (com.google.protobuf.ByteString) ref;
+      }
+    }
+
     private byte memoizedIsInitialized = -1;
+    @java.lang.Override
     public final boolean isInitialized() {
       byte isInitialized = memoizedIsInitialized;
       if (isInitialized == 1) return true;
@@ -3074,6 +3371,7 @@ public final class MethodProtos {
       return true;
     }
 
+    @java.lang.Override
     public void writeTo(com.google.protobuf.CodedOutputStream output)
                         throws java.io.IOException {
       if (!getSignatureBytes().isEmpty()) {
@@ -3106,9 +3404,13 @@ public final class MethodProtos {
       if (!getReturnValueBytes().isEmpty()) {
         com.google.protobuf.GeneratedMessageV3.writeString(output, 10, returnValue_);
       }
+      if (!getExceptionBytes().isEmpty()) {
+        com.google.protobuf.GeneratedMessageV3.writeString(output, 11, exception_);
+      }
       unknownFields.writeTo(output);
     }
 
+    @java.lang.Override
     public int getSerializedSize() {
       int size = memoizedSize;
       if (size != -1) return size;
@@ -3156,6 +3458,9 @@ public final class MethodProtos {
       if (!getReturnValueBytes().isEmpty()) {
         size += com.google.protobuf.GeneratedMessageV3.computeStringSize(10, returnValue_);
       }
+      if (!getExceptionBytes().isEmpty()) {
+        size += com.google.protobuf.GeneratedMessageV3.computeStringSize(11, exception_);
+      }
       size += unknownFields.getSerializedSize();
       memoizedSize = size;
       return size;
@@ -3194,6 +3499,8 @@ public final class MethodProtos {
           .equals(other.getParamValuesList());
       result = result && getReturnValue()
           .equals(other.getReturnValue());
+      result = result && getException()
+          .equals(other.getException());
       result = result && unknownFields.equals(other.unknownFields);
       return result;
     }
@@ -3235,6 +3542,8 @@ public final class MethodProtos {
       }
       hash = (37 * hash) + RETURN_VALUE_FIELD_NUMBER;
       hash = (53 * hash) + getReturnValue().hashCode();
+      hash = (37 * hash) + EXCEPTION_FIELD_NUMBER;
+      hash = (53 * hash) + getException().hashCode();
       hash = (29 * hash) + unknownFields.hashCode();
       memoizedHashCode = hash;
       return hash;
@@ -3310,6 +3619,7 @@ public final class MethodProtos {
           .parseWithIOException(PARSER, input, extensionRegistry);
     }
 
+    @java.lang.Override
     public Builder newBuilderForType() { return newBuilder(); }
     public static Builder newBuilder() {
       return DEFAULT_INSTANCE.toBuilder();
@@ -3317,6 +3627,7 @@ public final class MethodProtos {
     public static Builder newBuilder(agent.MethodProtos.MethodCall prototype) {
       return DEFAULT_INSTANCE.toBuilder().mergeFrom(prototype);
     }
+    @java.lang.Override
     public Builder toBuilder() {
       return this == DEFAULT_INSTANCE
           ? new Builder() : new Builder().mergeFrom(this);
@@ -3340,6 +3651,7 @@ public final class MethodProtos {
         return agent.MethodProtos.internal_static_agent_MethodCall_descriptor;
       }
 
+      @java.lang.Override
       protected com.google.protobuf.GeneratedMessageV3.FieldAccessorTable
           internalGetFieldAccessorTable() {
         return agent.MethodProtos.internal_static_agent_MethodCall_fieldAccessorTable
@@ -3364,6 +3676,7 @@ public final class MethodProtos {
           getInstructionsFieldBuilder();
         }
       }
+      @java.lang.Override
       public Builder clear() {
         super.clear();
         signature_ = "";
@@ -3398,18 +3711,23 @@ public final class MethodProtos {
         bitField0_ = (bitField0_ & ~0x00000100);
         returnValue_ = "";
 
+        exception_ = "";
+
         return this;
       }
 
+      @java.lang.Override
       public com.google.protobuf.Descriptors.Descriptor
           getDescriptorForType() {
         return agent.MethodProtos.internal_static_agent_MethodCall_descriptor;
       }
 
+      @java.lang.Override
       public agent.MethodProtos.MethodCall getDefaultInstanceForType() {
         return agent.MethodProtos.MethodCall.getDefaultInstance();
       }
 
+      @java.lang.Override
       public agent.MethodProtos.MethodCall build() {
         agent.MethodProtos.MethodCall result = buildPartial();
         if (!result.isInitialized()) {
@@ -3418,6 +3736,7 @@ public final class MethodProtos {
         return result;
       }
 
+      @java.lang.Override
       public agent.MethodProtos.MethodCall buildPartial() {
         agent.MethodProtos.MethodCall result = new agent.MethodProtos.MethodCall(this);
         int from_bitField0_ = bitField0_;
@@ -3456,37 +3775,45 @@ public final class MethodProtos {
         }
         result.paramValues_ = paramValues_;
         result.returnValue_ = returnValue_;
+        result.exception_ = exception_;
         result.bitField0_ = to_bitField0_;
         onBuilt();
         return result;
       }
 
+      @java.lang.Override
       public Builder clone() {
         return (Builder) super.clone();
       }
+      @java.lang.Override
       public Builder setField(
           com.google.protobuf.Descriptors.FieldDescriptor field,
           java.lang.Object value) {
         return (Builder) super.setField(field, value);
       }
+      @java.lang.Override
       public Builder clearField(
           com.google.protobuf.Descriptors.FieldDescriptor field) {
         return (Builder) super.clearField(field);
       }
+      @java.lang.Override
       public Builder clearOneof(
           com.google.protobuf.Descriptors.OneofDescriptor oneof) {
         return (Builder) super.clearOneof(oneof);
       }
+      @java.lang.Override
       public Builder setRepeatedField(
           com.google.protobuf.Descriptors.FieldDescriptor field,
           int index, java.lang.Object value) {
         return (Builder) super.setRepeatedField(field, index, value);
       }
+      @java.lang.Override
       public Builder addRepeatedField(
           com.google.protobuf.Descriptors.FieldDescriptor field,
           java.lang.Object value) {
         return (Builder) super.addRepeatedField(field, value);
       }
+      @java.lang.Override
       public Builder mergeFrom(com.google.protobuf.Message other) {
         if (other instanceof agent.MethodProtos.MethodCall) {
           return mergeFrom((agent.MethodProtos.MethodCall)other);
@@ -3583,15 +3910,21 @@ public final class MethodProtos {
           returnValue_ = other.returnValue_;
           onChanged();
         }
+        if (!other.getException().isEmpty()) {
+          exception_ = other.exception_;
+          onChanged();
+        }
         this.mergeUnknownFields(other.unknownFields);
         onChanged();
         return this;
       }
 
+      @java.lang.Override
       public final boolean isInitialized() {
         return true;
       }
 
+      @java.lang.Override
       public Builder mergeFrom(
           com.google.protobuf.CodedInputStream input,
           com.google.protobuf.ExtensionRegistryLite extensionRegistry)
@@ -3699,6 +4032,7 @@ public final class MethodProtos {
        * <code>.agent.MethodCall.MethodCallType type = 2;</code>
        */
       public agent.MethodProtos.MethodCall.MethodCallType getType() {
+        @SuppressWarnings("deprecation")
         agent.MethodProtos.MethodCall.MethodCallType result = agent.MethodProtos.MethodCall.MethodCallType.valueOf(type_);
         return result == null ? agent.MethodProtos.MethodCall.MethodCallType.UNRECOGNIZED : result;
       }
@@ -4561,50 +4895,1623 @@ public final class MethodProtos {
         onChanged();
         return this;
       }
-      public final Builder setUnknownFields(
-          final com.google.protobuf.UnknownFieldSet unknownFields) {
-        return super.setUnknownFieldsProto3(unknownFields);
-      }
 
-      public final Builder mergeUnknownFields(
-          final com.google.protobuf.UnknownFieldSet unknownFields) {
-        return super.mergeUnknownFields(unknownFields);
+      private java.lang.Object exception_ = "";
+      /**
+       * <pre>
+       * class of the exception the call exited with, if it threw
+       * </pre>
+       *
+       * <code>string exception = 11;</code>
+       */
+      public java.lang.String getException() {
+        java.lang.Object ref = exception_;
+        if (!(ref instanceof java.lang.String)) {
+          com.google.protobuf.ByteString bs =
+              (com.google.protobuf.ByteString) ref;
+          java.lang.String s = bs.toStringUtf8();
+          exception_ = s;
+          return s;
+        } else {
+          return (java.lang.String) ref;
+        }
+      }
+      /**
+       * <pre>
+       * class of the exception the call exited with, if it threw
+       * </pre>
+       *
+       * <code>string exception = 11;</code>
+       */
+      public com.google.protobuf.ByteString
+          getExceptionBytes() {
+        java.lang.Object ref = exception_;
+        if (ref instanceof String) {
+          com.google.protobuf.ByteString b = 
+              com.google.protobuf.ByteString.copyFromUtf8(
+                  (java.lang.String) ref);
+          exception_ = b;
+          return b;
+        } else {
+          return (com.google.protobuf.ByteString) ref;
+        }
+      }
+      /**
+       * <pre>
+       * class of the exception the call exited with, if it threw
+       * </pre>
+       *
+       * <code>string exception = 11;</code>
+       */
+      public Builder setException(
+          java.lang.String value) {
+        if (value == null) {
+    throw new NullPointerException();
+  }
+  
+        exception_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <pre>
+       * class of the exception the call exited with, if it threw
+       * </pre>
+       *
+       * <code>string exception = 11;</code>
+       */
+      public Builder clearException() {
+        
+        exception_ = getDefaultInstance().getException();
+        onChanged();
+        return this;
+      }
+      /**
+       * <pre>
+       * class of the exception the call exited with, if it threw
+       * </pre>
+       *
+       * <code>string exception = 11;</code>
+       */
+      public Builder setExceptionBytes(
+          com.google.protobuf.ByteString value) {
+        if (value == null) {
+    throw new NullPointerException();
+  }
+  checkByteStringIsUtf8(value);
+        
+        exception_ = value;
+        onChanged();
+        return this;
+      }
+      @java.lang.Override
+      public final Builder setUnknownFields(
+          final com.google.protobuf.UnknownFieldSet unknownFields) {
+        return super.setUnknownFieldsProto3(unknownFields);
+      }
+
+      @java.lang.Override
+      public final Builder mergeUnknownFields(
+          final com.google.protobuf.UnknownFieldSet unknownFields) {
+        return super.mergeUnknownFields(unknownFields);
+      }
+
+
+      // @@protoc_insertion_point(builder_scope:agent.MethodCall)
+    }
+
+    // @@protoc_insertion_point(class_scope:agent.MethodCall)
+    private static final agent.MethodProtos.MethodCall DEFAULT_INSTANCE;
+    static {
+      DEFAULT_INSTANCE = new agent.MethodProtos.MethodCall();
+    }
+
+    public static agent.MethodProtos.MethodCall getDefaultInstance() {
+      return DEFAULT_INSTANCE;
+    }
+
+    private static final com.google.protobuf.Parser<MethodCall>
+        PARSER = new com.google.protobuf.AbstractParser<MethodCall>() {
+      @java.lang.Override
+      public MethodCall parsePartialFrom(
+          com.google.protobuf.CodedInputStream input,
+          com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+          throws com.google.protobuf.InvalidProtocolBufferException {
+        return new MethodCall(input, extensionRegistry);
+      }
+    };
+
+    public static com.google.protobuf.Parser<MethodCall> parser() {
+      return PARSER;
+    }
+
+    @java.lang.Override
+    public com.google.protobuf.Parser<MethodCall> getParserForType() {
+      return PARSER;
+    }
+
+    @java.lang.Override
+    public agent.MethodProtos.MethodCall getDefaultInstanceForType() {
+      return DEFAULT_INSTANCE;
+    }
+
+  }
+
+  public interface TraceEventOrBuilder extends
+      // @@protoc_insertion_point(interface_extends:agent.TraceEvent)
+      com.google.protobuf.MessageOrBuilder {
+
+    /**
+     * <code>.agent.TraceEvent.EventType type = 1;</code>
+     */
+    int getTypeValue();
+    /**
+     * <code>.agent.TraceEvent.EventType type = 1;</code>
+     */
+    agent.MethodProtos.TraceEvent.EventType getType();
+
+    /**
+     * <pre>
+     * METHOD_ENTER: the call without calls, instructions or duration
+     * </pre>
+     *
+     * <code>.agent.MethodCall call = 2;</code>
+     */
+    boolean hasCall();
+    /**
+     * <pre>
+     * METHOD_ENTER: the call without calls, instructions or duration
+     * </pre>
+     *
+     * <code>.agent.MethodCall call = 2;</code>
+     */
+    agent.MethodProtos.MethodCall getCall();
+    /**
+     * <pre>
+     * METHOD_ENTER: the call without calls, instructions or duration
+     * </pre>
+     *
+     * <code>.agent.MethodCall call = 2;</code>
+     */
+    agent.MethodProtos.MethodCallOrBuilder getCallOrBuilder();
+
+    /**
+     * <pre>
+     * METHOD_EXIT
+     * </pre>
+     *
+     * <code>int64 duration = 3;</code>
+     */
+    long getDuration();
+
+    /**
+     * <code>string return_value = 4;</code>
+     */
+    java.lang.String getReturnValue();
+    /**
+     * <code>string return_value = 4;</code>
+     */
+    com.google.protobuf.ByteString
+        getReturnValueBytes();
+
+    /**
+     * <code>string exception = 6;</code>
+     */
+    java.lang.String getException();
+    /**
+     * <code>string exception = 6;</code>
+     */
+    com.google.protobuf.ByteString
+        getExceptionBytes();
+
+    /**
+     * <pre>
+     * INSTRUCTION
+     * </pre>
+     *
+     * <code>.agent.MethodCall.Instruction instruction = 5;</code>
+     */
+    boolean hasInstruction();
+    /**
+     * <pre>
+     * INSTRUCTION
+     * </pre>
+     *
+     * <code>.agent.MethodCall.Instruction instruction = 5;</code>
+     */
+    agent.MethodProtos.MethodCall.Instruction getInstruction();
+    /**
+     * <pre>
+     * INSTRUCTION
+     * </pre>
+     *
+     * <code>.agent.MethodCall.Instruction instruction = 5;</code>
+     */
+    agent.MethodProtos.MethodCall.InstructionOrBuilder getInstructionOrBuilder();
+  }
+  /**
+   * Protobuf type {@code agent.TraceEvent}
+   */
+  public  static final class TraceEvent extends
+      com.google.protobuf.GeneratedMessageV3 implements
+      // @@protoc_insertion_point(message_implements:agent.TraceEvent)
+      TraceEventOrBuilder {
+  private static final long serialVersionUID = 0L;
+    // Use TraceEvent.newBuilder() to construct.
+    private TraceEvent(com.google.protobuf.GeneratedMessageV3.Builder<?> builder) {
+      super(builder);
+    }
+    private TraceEvent() {
+      type_ = 0;
+      duration_ = 0L;
+      returnValue_ = "";
+      exception_ = "";
+    }
+
+    @java.lang.Override
+    public final com.google.protobuf.UnknownFieldSet
+    getUnknownFields() {
+      return this.unknownFields;
+    }
+    private TraceEvent(
+        com.google.protobuf.CodedInputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      this();
+      if (extensionRegistry == null) {
+        throw new java.lang.NullPointerException();
+      }
+      int mutable_bitField0_ = 0;
+      com.google.protobuf.UnknownFieldSet.Builder unknownFields =
+          com.google.protobuf.UnknownFieldSet.newBuilder();
+      try {
+        boolean done = false;
+        while (!done) {
+          int tag = input.readTag();
+          switch (tag) {
+            case 0:
+              done = true;
+              break;
+            case 8: {
+              int rawValue = input.readEnum();
+
+              type_ = rawValue;
+              break;
+            }
+            case 18: {
+              agent.MethodProtos.MethodCall.Builder subBuilder = null;
+              if (call_ != null) {
+                subBuilder = call_.toBuilder();
+              }
+              call_ = input.readMessage(agent.MethodProtos.MethodCall.parser(), extensionRegistry);
+              if (subBuilder != null) {
+                subBuilder.mergeFrom(call_);
+                call_ = subBuilder.buildPartial();
+              }
+
+              break;
+            }
+            case 24: {
+
+              duration_ = input.readInt64();
+              break;
+            }
+            case 34: {
+              java.lang.String s = input.readStringRequireUtf8();
+
+              returnValue_ = s;
+              break;
+            }
+            case 42: {
+              agent.MethodProtos.MethodCall.Instruction.Builder subBuilder = null;
+              if (instruction_ != null) {
+                subBuilder = instruction_.toBuilder();
+              }
+              instruction_ = input.readMessage(agent.MethodProtos.MethodCall.Instruction.parser(), extensionRegistry);
+              if (subBuilder != null) {
+                subBuilder.mergeFrom(instruction_);
+                instruction_ = subBuilder.buildPartial();
+              }
+
+              break;
+            }
+            case 50: {
+              java.lang.String s = input.readStringRequireUtf8();
+
+              exception_ = s;
+              break;
+            }
+            default: {
+              if (!parseUnknownFieldProto3(
+                  input, unknownFields, extensionRegistry, tag)) {
+                done = true;
+              }
+              break;
+            }
+          }
+        }
+      } catch (com.google.protobuf.InvalidProtocolBufferException e) {
+        throw e.setUnfinishedMessage(this);
+      } catch (java.io.IOException e) {
+        throw new com.google.protobuf.InvalidProtocolBufferException(
+            e).setUnfinishedMessage(this);
+      } finally {
+        this.unknownFields = unknownFields.build();
+        makeExtensionsImmutable();
+      }
+    }
+    public static final com.google.protobuf.Descriptors.Descriptor
+        getDescriptor() {
+      return agent.MethodProtos.internal_static_agent_TraceEvent_descriptor;
+    }
+
+    @java.lang.Override
+    protected com.google.protobuf.GeneratedMessageV3.FieldAccessorTable
+        internalGetFieldAccessorTable() {
+      return agent.MethodProtos.internal_static_agent_TraceEvent_fieldAccessorTable
+          .ensureFieldAccessorsInitialized(
+              agent.MethodProtos.TraceEvent.class, agent.MethodProtos.TraceEvent.Builder.class);
+    }
+
+    /**
+     * Protobuf enum {@code agent.TraceEvent.EventType}
+     */
+    public enum EventType
+        implements com.google.protobuf.ProtocolMessageEnum {
+      /**
+       * <code>METHOD_ENTER = 0;</code>
+       */
+      METHOD_ENTER(0),
+      /**
+       * <code>METHOD_EXIT = 1;</code>
+       */
+      METHOD_EXIT(1),
+      /**
+       * <code>INSTRUCTION = 2;</code>
+       */
+      INSTRUCTION(2),
+      UNRECOGNIZED(-1),
+      ;
+
+      /**
+       * <code>METHOD_ENTER = 0;</code>
+       */
+      public static final int METHOD_ENTER_VALUE = 0;
+      /**
+       * <code>METHOD_EXIT = 1;</code>
+       */
+      public static final int METHOD_EXIT_VALUE = 1;
+      /**
+       * <code>INSTRUCTION = 2;</code>
+       */
+      public static final int INSTRUCTION_VALUE = 2;
+
+
+      public final int getNumber() {
+        if (this == UNRECOGNIZED) {
+          throw new java.lang.IllegalArgumentException(
+              "Can't get the number of an unknown enum value.");
+        }
+        return value;
+      }
+
+      /**
+       * @deprecated Use {@link #forNumber(int)} instead.
+       */
+      @java.lang.Deprecated
+      public static EventType valueOf(int value) {
+        return forNumber(value);
+      }
+
+      public static EventType forNumber(int value) {
+        switch (value) {
+          case 0: return METHOD_ENTER;
+          case 1: return METHOD_EXIT;
+          case 2: return INSTRUCTION;
+          default: return null;
+        }
+      }
+
+      public static com.google.protobuf.Internal.EnumLiteMap<EventType>
+          internalGetValueMap() {
+        return internalValueMap;
+      }
+      private static final com.google.protobuf.Internal.EnumLiteMap<
+          EventType> internalValueMap =
+            new com.google.protobuf.Internal.EnumLiteMap<EventType>() {
+              public EventType findValueByNumber(int number) {
+                return EventType.forNumber(number);
+              }
+            };
+
+      public final com.google.protobuf.Descriptors.EnumValueDescriptor
+          getValueDescriptor() {
+        return getDescriptor().getValues().get(ordinal());
+      }
+      public final com.google.protobuf.Descriptors.EnumDescriptor
+          getDescriptorForType() {
+        return getDescriptor();
+      }
+      public static final com.google.protobuf.Descriptors.EnumDescriptor
+          getDescriptor() {
+        return agent.MethodProtos.TraceEvent.getDescriptor().getEnumTypes().get(0);
+      }
+
+      private static final EventType[] VALUES = values();
+
+      public static EventType valueOf(
+          com.google.protobuf.Descriptors.EnumValueDescriptor desc) {
+        if (desc.getType() != getDescriptor()) {
+          throw new java.lang.IllegalArgumentException(
+            "EnumValueDescriptor is not for this type.");
+        }
+        if (desc.getIndex() == -1) {
+          return UNRECOGNIZED;
+        }
+        return VALUES[desc.getIndex()];
+      }
+
+      private final int value;
+
+      private EventType(int value) {
+        this.value = value;
+      }
+
+      // @@protoc_insertion_point(enum_scope:agent.TraceEvent.EventType)
+    }
+
+    public static final int TYPE_FIELD_NUMBER = 1;
+    private int type_;
+    /**
+     * <code>.agent.TraceEvent.EventType type = 1;</code>
+     */
+    public int getTypeValue() {
+      return type_;
+    }
+    /**
+     * <code>.agent.TraceEvent.EventType type = 1;</code>
+     */
+    public agent.MethodProtos.TraceEvent.EventType getType() {
+      @SuppressWarnings("deprecation")
+      agent.MethodProtos.TraceEvent.EventType result = agent.MethodProtos.TraceEvent.EventType.valueOf(type_);
+      return result == null ? agent.MethodProtos.TraceEvent.EventType.UNRECOGNIZED : result;
+    }
+
+    public static final int CALL_FIELD_NUMBER = 2;
+    private agent.MethodProtos.MethodCall call_;
+    /**
+     * <pre>
+     * METHOD_ENTER: the call without calls, instructions or duration
+     * </pre>
+     *
+     * <code>.agent.MethodCall call = 2;</code>
+     */
+    public boolean hasCall() {
+      return call_ != null;
+    }
+    /**
+     * <pre>
+     * METHOD_ENTER: the call without calls, instructions or duration
+     * </pre>
+     *
+     * <code>.agent.MethodCall call = 2;</code>
+     */
+    public agent.MethodProtos.MethodCall getCall() {
+      return call_ == null ? agent.MethodProtos.MethodCall.getDefaultInstance() : call_;
+    }
+    /**
+     * <pre>
+     * METHOD_ENTER: the call without calls, instructions or duration
+     * </pre>
+     *
+     * <code>.agent.MethodCall call = 2;</code>
+     */
+    public agent.MethodProtos.MethodCallOrBuilder getCallOrBuilder() {
+      return getCall();
+    }
+
+    public static final int DURATION_FIELD_NUMBER = 3;
+    private long duration_;
+    /**
+     * <pre>
+     * METHOD_EXIT
+     * </pre>
+     *
+     * <code>int64 duration = 3;</code>
+     */
+    public long getDuration() {
+      return duration_;
+    }
+
+    public static final int RETURN_VALUE_FIELD_NUMBER = 4;
+    private volatile java.lang.Object returnValue_;
+    /**
+     * <code>string return_value = 4;</code>
+     */
+    public java.lang.String getReturnValue() {
+      java.lang.Object ref = returnValue_;
+      if (ref instanceof java.lang.String) {
+        return (java.lang.String) ref;
+      } else {
+        com.google.protobuf.ByteString bs = 
+            (com.google.protobuf.ByteString) ref;
+        java.lang.String s = bs.toStringUtf8();
+        returnValue_ = s;
+        return s;
+      }
+    }
+    /**
+     * <code>string return_value = 4;</code>
+     */
+    public com.google.protobuf.ByteString
+        getReturnValueBytes() {
+      java.lang.Object ref = returnValue_;
+      if (ref instanceof java.lang.String) {
+        com.google.protobuf.ByteString b = 
+            com.google.protobuf.ByteString.copyFromUtf8(
+                (java.lang.String) ref);
+        returnValue_ = b;
+        return b;
+      } else {
+        return (com.google.protobuf.ByteString) ref;
+      }
+    }
+
+    public static final int EXCEPTION_FIELD_NUMBER = 6;
+    private volatile java.lang.Object exception_;
+    /**
+     * <code>string exception = 6;</code>
+     */
+    public java.lang.String getException() {
+      java.lang.Object ref = exception_;
+      if (ref instanceof java.lang.String) {
+        return (java.lang.String) ref;
+      } else {
+        com.google.protobuf.ByteString bs = 
+            (com.google.protobuf.ByteString) ref;
+        java.lang.String s = bs.toStringUtf8();
+        exception_ = s;
+        return s;
+      }
+    }
+    /**
+     * <code>string exception = 6;</code>
+     */
+    public com.google.protobuf.ByteString
+        getExceptionBytes() {
+      java.lang.Object ref = exception_;
+      if (ref instanceof java.lang.String) {
+        com.google.protobuf.ByteString b = 
+            com.google.protobuf.ByteString.copyFromUtf8(
+                (java.lang.String) ref);
+        exception_ = b;
+        return b;
+      } else {
+        return (com.google.protobuf.ByteString) ref;
+      }
+    }
+
+    public static final int INSTRUCTION_FIELD_NUMBER = 5;
+    private agent.MethodProtos.MethodCall.Instruction instruction_;
+    /**
+     * <pre>
+     * INSTRUCTION
+     * </pre>
+     *
+     * <code>.agent.MethodCall.Instruction instruction = 5;</code>
+     */
+    public boolean hasInstruction() {
+      return instruction_ != null;
+    }
+    /**
+     * <pre>
+     * INSTRUCTION
+     * </pre>
+     *
+     * <code>.agent.MethodCall.Instruction instruction = 5;</code>
+     */
+    public agent.MethodProtos.MethodCall.Instruction getInstruction() {
+      return instruction_ == null ? agent.MethodProtos.MethodCall.Instruction.getDefaultInstance() : instruction_;
+    }
+    /**
+     * <pre>
+     * INSTRUCTION
+     * </pre>
+     *
+     * <code>.agent.MethodCall.Instruction instruction = 5;</code>
+     */
+    public agent.MethodProtos.MethodCall.InstructionOrBuilder getInstructionOrBuilder() {
+      return getInstruction();
+    }
+
+    private byte memoizedIsInitialized = -1;
+    @java.lang.Override
+    public final boolean isInitialized() {
+      byte isInitialized = memoizedIsInitialized;
+      if (isInitialized == 1) return true;
+      if (isInitialized == 0) return false;
+
+      memoizedIsInitialized = 1;
+      return true;
+    }
+
+    @java.lang.Override
+    public void writeTo(com.google.protobuf.CodedOutputStream output)
+                        throws java.io.IOException {
+      if (type_ != agent.MethodProtos.TraceEvent.EventType.METHOD_ENTER.getNumber()) {
+        output.writeEnum(1, type_);
+      }
+      if (call_ != null) {
+        output.writeMessage(2, getCall());
+      }
+      if (duration_ != 0L) {
+        output.writeInt64(3, duration_);
+      }
+      if (!getReturnValueBytes().isEmpty()) {
+        com.google.protobuf.GeneratedMessageV3.writeString(output, 4, returnValue_);
+      }
+      if (instruction_ != null) {
+        output.writeMessage(5, getInstruction());
+      }
+      if (!getExceptionBytes().isEmpty()) {
+        com.google.protobuf.GeneratedMessageV3.writeString(output, 6, exception_);
+      }
+      unknownFields.writeTo(output);
+    }
+
+    @java.lang.Override
+    public int getSerializedSize() {
+      int size = memoizedSize;
+      if (size != -1) return size;
+
+      size = 0;
+      if (type_ != agent.MethodProtos.TraceEvent.EventType.METHOD_ENTER.getNumber()) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeEnumSize(1, type_);
+      }
+      if (call_ != null) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeMessageSize(2, getCall());
+      }
+      if (duration_ != 0L) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeInt64Size(3, duration_);
+      }
+      if (!getReturnValueBytes().isEmpty()) {
+        size += com.google.protobuf.GeneratedMessageV3.computeStringSize(4, returnValue_);
+      }
+      if (instruction_ != null) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeMessageSize(5, getInstruction());
+      }
+      if (!getExceptionBytes().isEmpty()) {
+        size += com.google.protobuf.GeneratedMessageV3.computeStringSize(6, exception_);
+      }
+      size += unknownFields.getSerializedSize();
+      memoizedSize = size;
+      return size;
+    }
+
+    @java.lang.Override
+    public boolean equals(final java.lang.Object obj) {
+      if (obj == this) {
+       return true;
+      }
+      if (!(obj instanceof agent.MethodProtos.TraceEvent)) {
+        return super.equals(obj);
+      }
+      agent.MethodProtos.TraceEvent other = (agent.MethodProtos.TraceEvent) obj;
+
+      boolean result = true;
+      result = result && type_ == other.type_;
+      result = result && (hasCall() == other.hasCall());
+      if (hasCall()) {
+        result = result && getCall()
+            .equals(other.getCall());
+      }
+      result = result && (getDuration()
+          == other.getDuration());
+      result = result && getReturnValue()
+          .equals(other.getReturnValue());
+      result = result && getException()
+          .equals(other.getException());
+      result = result && (hasInstruction() == other.hasInstruction());
+      if (hasInstruction()) {
+        result = result && getInstruction()
+            .equals(other.getInstruction());
+      }
+      result = result && unknownFields.equals(other.unknownFields);
+      return result;
+    }
+
+    @java.lang.Override
+    public int hashCode() {
+      if (memoizedHashCode != 0) {
+        return memoizedHashCode;
+      }
+      int hash = 41;
+      hash = (19 * hash) + getDescriptor().hashCode();
+      hash = (37 * hash) + TYPE_FIELD_NUMBER;
+      hash = (53 * hash) + type_;
+      if (hasCall()) {
+        hash = (37 * hash) + CALL_FIELD_NUMBER;
+        hash = (53 * hash) + getCall().hashCode();
+      }
+      hash = (37 * hash) + DURATION_FIELD_NUMBER;
+      hash = (53 * hash) + com.google.protobuf.Internal.hashLong(
+          getDuration());
+      hash = (37 * hash) + RETURN_VALUE_FIELD_NUMBER;
+      hash = (53 * hash) + getReturnValue().hashCode();
+      hash = (37 * hash) + EXCEPTION_FIELD_NUMBER;
+      hash = (53 * hash) + getException().hashCode();
+      if (hasInstruction()) {
+        hash = (37 * hash) + INSTRUCTION_FIELD_NUMBER;
+        hash = (53 * hash) + getInstruction().hashCode();
+      }
+      hash = (29 * hash) + unknownFields.hashCode();
+      memoizedHashCode = hash;
+      return hash;
+    }
+
+    public static agent.MethodProtos.TraceEvent parseFrom(
+        java.nio.ByteBuffer data)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data);
+    }
+    public static agent.MethodProtos.TraceEvent parseFrom(
+        java.nio.ByteBuffer data,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data, extensionRegistry);
+    }
+    public static agent.MethodProtos.TraceEvent parseFrom(
+        com.google.protobuf.ByteString data)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data);
+    }
+    public static agent.MethodProtos.TraceEvent parseFrom(
+        com.google.protobuf.ByteString data,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data, extensionRegistry);
+    }
+    public static agent.MethodProtos.TraceEvent parseFrom(byte[] data)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data);
+    }
+    public static agent.MethodProtos.TraceEvent parseFrom(
+        byte[] data,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data, extensionRegistry);
+    }
+    public static agent.MethodProtos.TraceEvent parseFrom(java.io.InputStream input)
+        throws java.io.IOException {
+      return com.google.protobuf.GeneratedMessageV3
+          .parseWithIOException(PARSER, input);
+    }
+    public static agent.MethodProtos.TraceEvent parseFrom(
+        java.io.InputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return com.google.protobuf.GeneratedMessageV3
+          .parseWithIOException(PARSER, input, extensionRegistry);
+    }
+    public static agent.MethodProtos.TraceEvent parseDelimitedFrom(java.io.InputStream input)
+        throws java.io.IOException {
+      return com.google.protobuf.GeneratedMessageV3
+          .parseDelimitedWithIOException(PARSER, input);
+    }
+    public static agent.MethodProtos.TraceEvent parseDelimitedFrom(
+        java.io.InputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return com.google.protobuf.GeneratedMessageV3
+          .parseDelimitedWithIOException(PARSER, input, extensionRegistry);
+    }
+    public static agent.MethodProtos.TraceEvent parseFrom(
+        com.google.protobuf.CodedInputStream input)
+        throws java.io.IOException {
+      return com.google.protobuf.GeneratedMessageV3
+          .parseWithIOException(PARSER, input);
+    }
+    public static agent.MethodProtos.TraceEvent parseFrom(
+        com.google.protobuf.CodedInputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return com.google.protobuf.GeneratedMessageV3
+          .parseWithIOException(PARSER, input, extensionRegistry);
+    }
+
+    @java.lang.Override
+    public Builder newBuilderForType() { return newBuilder(); }
+    public static Builder newBuilder() {
+      return DEFAULT_INSTANCE.toBuilder();
+    }
+    public static Builder newBuilder(agent.MethodProtos.TraceEvent prototype) {
+      return DEFAULT_INSTANCE.toBuilder().mergeFrom(prototype);
+    }
+    @java.lang.Override
+    public Builder toBuilder() {
+      return this == DEFAULT_INSTANCE
+          ? new Builder() : new Builder().mergeFrom(this);
+    }
+
+    @java.lang.Override
+    protected Builder newBuilderForType(
+        com.google.protobuf.GeneratedMessageV3.BuilderParent parent) {
+      Builder builder = new Builder(parent);
+      return builder;
+    }
+    /**
+     * Protobuf type {@code agent.TraceEvent}
+     */
+    public static final class Builder extends
+        com.google.protobuf.GeneratedMessageV3.Builder<Builder> implements
+        // @@protoc_insertion_point(builder_implements:agent.TraceEvent)
+        agent.MethodProtos.TraceEventOrBuilder {
+      public static final com.google.protobuf.Descriptors.Descriptor
+          getDescriptor() {
+        return agent.MethodProtos.internal_static_agent_TraceEvent_descriptor;
+      }
+
+      @java.lang.Override
+      protected com.google.protobuf.GeneratedMessageV3.FieldAccessorTable
+          internalGetFieldAccessorTable() {
+        return agent.MethodProtos.internal_static_agent_TraceEvent_fieldAccessorTable
+            .ensureFieldAccessorsInitialized(
+                agent.MethodProtos.TraceEvent.class, agent.MethodProtos.TraceEvent.Builder.class);
+      }
+
+      // Construct using agent.MethodProtos.TraceEvent.newBuilder()
+      private Builder() {
+        maybeForceBuilderInitialization();
+      }
+
+      private Builder(
+          com.google.protobuf.GeneratedMessageV3.BuilderParent parent) {
+        super(parent);
+        maybeForceBuilderInitialization();
+      }
+      private void maybeForceBuilderInitialization() {
+        if (com.google.protobuf.GeneratedMessageV3
+                .alwaysUseFieldBuilders) {
+        }
+      }
+      @java.lang.Override
+      public Builder clear() {
+        super.clear();
+        type_ = 0;
+
+        if (callBuilder_ == null) {
+          call_ = null;
+        } else {
+          call_ = null;
+          callBuilder_ = null;
+        }
+        duration_ = 0L;
+
+        returnValue_ = "";
+
+        exception_ = "";
+
+        if (instructionBuilder_ == null) {
+          instruction_ = null;
+        } else {
+          instruction_ = null;
+          instructionBuilder_ = null;
+        }
+        return this;
+      }
+
+      @java.lang.Override
+      public com.google.protobuf.Descriptors.Descriptor
+          getDescriptorForType() {
+        return agent.MethodProtos.internal_static_agent_TraceEvent_descriptor;
+      }
+
+      @java.lang.Override
+      public agent.MethodProtos.TraceEvent getDefaultInstanceForType() {
+        return agent.MethodProtos.TraceEvent.getDefaultInstance();
+      }
+
+      @java.lang.Override
+      public agent.MethodProtos.TraceEvent build() {
+        agent.MethodProtos.TraceEvent result = buildPartial();
+        if (!result.isInitialized()) {
+          throw newUninitializedMessageException(result);
+        }
+        return result;
+      }
+
+      @java.lang.Override
+      public agent.MethodProtos.TraceEvent buildPartial() {
+        agent.MethodProtos.TraceEvent result = new agent.MethodProtos.TraceEvent(this);
+        result.type_ = type_;
+        if (callBuilder_ == null) {
+          result.call_ = call_;
+        } else {
+          result.call_ = callBuilder_.build();
+        }
+        result.duration_ = duration_;
+        result.returnValue_ = returnValue_;
+        result.exception_ = exception_;
+        if (instructionBuilder_ == null) {
+          result.instruction_ = instruction_;
+        } else {
+          result.instruction_ = instructionBuilder_.build();
+        }
+        onBuilt();
+        return result;
+      }
+
+      @java.lang.Override
+      public Builder clone() {
+        return (Builder) super.clone();
+      }
+      @java.lang.Override
+      public Builder setField(
+          com.google.protobuf.Descriptors.FieldDescriptor field,
+          java.lang.Object value) {
+        return (Builder) super.setField(field, value);
+      }
+      @java.lang.Override
+      public Builder clearField(
+          com.google.protobuf.Descriptors.FieldDescriptor field) {
+        return (Builder) super.clearField(field);
+      }
+      @java.lang.Override
+      public Builder clearOneof(
+          com.google.protobuf.Descriptors.OneofDescriptor oneof) {
+        return (Builder) super.clearOneof(oneof);
+      }
+      @java.lang.Override
+      public Builder setRepeatedField(
+          com.google.protobuf.Descriptors.FieldDescriptor field,
+          int index, java.lang.Object value) {
+        return (Builder) super.setRepeatedField(field, index, value);
+      }
+      @java.lang.Override
+      public Builder addRepeatedField(
+          com.google.protobuf.Descriptors.FieldDescriptor field,
+          java.lang.Object value) {
+        return (Builder) super.addRepeatedField(field, value);
+      }
+      @java.lang.Override
+      public Builder mergeFrom(com.google.protobuf.Message other) {
+        if (other instanceof agent.MethodProtos.TraceEvent) {
+          return mergeFrom((agent.MethodProtos.TraceEvent)other);
+        } else {
+          super.mergeFrom(other);
+          return this;
+        }
+      }
+
+      public Builder mergeFrom(agent.MethodProtos.TraceEvent other) {
+        if (other == agent.MethodProtos.TraceEvent.getDefaultInstance()) return this;
+        if (other.type_ != 0) {
+          setTypeValue(other.getTypeValue());
+        }
+        if (other.hasCall()) {
+          mergeCall(other.getCall());
+        }
+        if (other.getDuration() != 0L) {
+          setDuration(other.getDuration());
+        }
+        if (!other.getReturnValue().isEmpty()) {
+          returnValue_ = other.returnValue_;
+          onChanged();
+        }
+        if (!other.getException().isEmpty()) {
+          exception_ = other.exception_;
+          onChanged();
+        }
+        if (other.hasInstruction()) {
+          mergeInstruction(other.getInstruction());
+        }
+        this.mergeUnknownFields(other.unknownFields);
+        onChanged();
+        return this;
+      }
+
+      @java.lang.Override
+      public final boolean isInitialized() {
+        return true;
+      }
+
+      @java.lang.Override
+      public Builder mergeFrom(
+          com.google.protobuf.CodedInputStream input,
+          com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+          throws java.io.IOException {
+        agent.MethodProtos.TraceEvent parsedMessage = null;
+        try {
+          parsedMessage = PARSER.parsePartialFrom(input, extensionRegistry);
+        } catch (com.google.protobuf.InvalidProtocolBufferException e) {
+          parsedMessage = (agent.MethodProtos.TraceEvent) e.getUnfinishedMessage();
+          throw e.unwrapIOException();
+        } finally {
+          if (parsedMessage != null) {
+            mergeFrom(parsedMessage);
+          }
+        }
+        return this;
+      }
+
+      private int type_ = 0;
+      /**
+       * <code>.agent.TraceEvent.EventType type = 1;</code>
+       */
+      public int getTypeValue() {
+        return type_;
+      }
+      /**
+       * <code>.agent.TraceEvent.EventType type = 1;</code>
+       */
+      public Builder setTypeValue(int value) {
+        type_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>.agent.TraceEvent.EventType type = 1;</code>
+       */
+      public agent.MethodProtos.TraceEvent.EventType getType() {
+        @SuppressWarnings("deprecation")
+        agent.MethodProtos.TraceEvent.EventType result = agent.MethodProtos.TraceEvent.EventType.valueOf(type_);
+        return result == null ? agent.MethodProtos.TraceEvent.EventType.UNRECOGNIZED : result;
+      }
+      /**
+       * <code>.agent.TraceEvent.EventType type = 1;</code>
+       */
+      public Builder setType(agent.MethodProtos.TraceEvent.EventType value) {
+        if (value == null) {
+          throw new NullPointerException();
+        }
+        
+        type_ = value.getNumber();
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>.agent.TraceEvent.EventType type = 1;</code>
+       */
+      public Builder clearType() {
+        
+        type_ = 0;
+        onChanged();
+        return this;
+      }
+
+      private agent.MethodProtos.MethodCall call_ = null;
+      private com.google.protobuf.SingleFieldBuilderV3<
+          agent.MethodProtos.MethodCall, agent.MethodProtos.MethodCall.Builder, agent.MethodProtos.MethodCallOrBuilder> callBuilder_;
+      /**
+       * <pre>
+       * METHOD_ENTER: the call without calls, instructions or duration
+       * </pre>
+       *
+       * <code>.agent.MethodCall call = 2;</code>
+       */
+      public boolean hasCall() {
+        return callBuilder_ != null || call_ != null;
+      }
+      /**
+       * <pre>
+       * METHOD_ENTER: the call without calls, instructions or duration
+       * </pre>
+       *
+       * <code>.agent.MethodCall call = 2;</code>
+       */
+      public agent.MethodProtos.MethodCall getCall() {
+        if (callBuilder_ == null) {
+          return call_ == null ? agent.MethodProtos.MethodCall.getDefaultInstance() : call_;
+        } else {
+          return callBuilder_.getMessage();
+        }
+      }
+      /**
+       * <pre>
+       * METHOD_ENTER: the call without calls, instructions or duration
+       * </pre>
+       *
+       * <code>.agent.MethodCall call = 2;</code>
+       */
+      public Builder setCall(agent.MethodProtos.MethodCall value) {
+        if (callBuilder_ == null) {
+          if (value == null) {
+            throw new NullPointerException();
+          }
+          call_ = value;
+          onChanged();
+        } else {
+          callBuilder_.setMessage(value);
+        }
+
+        return this;
+      }
+      /**
+       * <pre>
+       * METHOD_ENTER: the call without calls, instructions or duration
+       * </pre>
+       *
+       * <code>.agent.MethodCall call = 2;</code>
+       */
+      public Builder setCall(
+          agent.MethodProtos.MethodCall.Builder builderForValue) {
+        if (callBuilder_ == null) {
+          call_ = builderForValue.build();
+          onChanged();
+        } else {
+          callBuilder_.setMessage(builderForValue.build());
+        }
+
+        return this;
+      }
+      /**
+       * <pre>
+       * METHOD_ENTER: the call without calls, instructions or duration
+       * </pre>
+       *
+       * <code>.agent.MethodCall call = 2;</code>
+       */
+      public Builder mergeCall(agent.MethodProtos.MethodCall value) {
+        if (callBuilder_ == null) {
+          if (call_ != null) {
+            call_ =
+              agent.MethodProtos.MethodCall.newBuilder(call_).mergeFrom(value).buildPartial();
+          } else {
+            call_ = value;
+          }
+          onChanged();
+        } else {
+          callBuilder_.mergeFrom(value);
+        }
+
+        return this;
+      }
+      /**
+       * <pre>
+       * METHOD_ENTER: the call without calls, instructions or duration
+       * </pre>
+       *
+       * <code>.agent.MethodCall call = 2;</code>
+       */
+      public Builder clearCall() {
+        if (callBuilder_ == null) {
+          call_ = null;
+          onChanged();
+        } else {
+          call_ = null;
+          callBuilder_ = null;
+        }
+
+        return this;
+      }
+      /**
+       * <pre>
+       * METHOD_ENTER: the call without calls, instructions or duration
+       * </pre>
+       *
+       * <code>.agent.MethodCall call = 2;</code>
+       */
+      public agent.MethodProtos.MethodCall.Builder getCallBuilder() {
+        
+        onChanged();
+        return getCallFieldBuilder().getBuilder();
+      }
+      /**
+       * <pre>
+       * METHOD_ENTER: the call without calls, instructions or duration
+       * </pre>
+       *
+       * <code>.agent.MethodCall call = 2;</code>
+       */
+      public agent.MethodProtos.MethodCallOrBuilder getCallOrBuilder() {
+        if (callBuilder_ != null) {
+          return callBuilder_.getMessageOrBuilder();
+        } else {
+          return call_ == null ?
+              agent.MethodProtos.MethodCall.getDefaultInstance() : call_;
+        }
+      }
+      /**
+       * <pre>
+       * METHOD_ENTER: the call without calls, instructions or duration
+       * </pre>
+       *
+       * <code>.agent.MethodCall call = 2;</code>
+       */
+      private com.google.protobuf.SingleFieldBuilderV3<
+          agent.MethodProtos.MethodCall, agent.MethodProtos.MethodCall.Builder, agent.MethodProtos.MethodCallOrBuilder> 
+          getCallFieldBuilder() {
+        if (callBuilder_ == null) {
+          callBuilder_ = new com.google.protobuf.SingleFieldBuilderV3<
+              agent.MethodProtos.MethodCall, agent.MethodProtos.MethodCall.Builder, agent.MethodProtos.MethodCallOrBuilder>(
+                  getCall(),
+                  getParentForChildren(),
+                  isClean());
+          call_ = null;
+        }
+        return callBuilder_;
       }
 
-
-      // @@protoc_insertion_point(builder_scope:agent.MethodCall)
-    }
-
-    // @@protoc_insertion_point(class_scope:agent.MethodCall)
-    private static final agent.MethodProtos.MethodCall DEFAULT_INSTANCE;
+      private long duration_ ;
+      /**
+       * <pre>
+       * METHOD_EXIT
+       * </pre>
+       *
+       * <code>int64 duration = 3;</code>
+       */
+      public long getDuration() {
+        return duration_;
+      }
+      /**
+       * <pre>
+       * METHOD_EXIT
+       * </pre>
+       *
+       * <code>int64 duration = 3;</code>
+       */
+      public Builder setDuration(long value) {
+        
+        duration_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <pre>
+       * METHOD_EXIT
+       * </pre>
+       *
+       * <code>int64 duration = 3;</code>
+       */
+      public Builder clearDuration() {
+        
+        duration_ = 0L;
+        onChanged();
+        return this;
+      }
+
+      private java.lang.Object returnValue_ = "";
+      /**
+       * <code>string return_value = 4;</code>
+       */
+      public java.lang.String getReturnValue() {
+        java.lang.Object ref = returnValue_;
+        if (!(ref instanceof java.lang.String)) {
+          com.google.protobuf.ByteString bs =
+              (com.google.protobuf.ByteString) ref;
+          java.lang.String s = bs.toStringUtf8();
+          returnValue_ = s;
+          return s;
+        } else {
+          return (java.lang.String) ref;
+        }
+      }
+      /**
+       * <code>string return_value = 4;</code>
+       */
+      public com.google.protobuf.ByteString
+          getReturnValueBytes() {
+        java.lang.Object ref = returnValue_;
+        if (ref instanceof String) {
+          com.google.protobuf.ByteString b = 
+              com.google.protobuf.ByteString.copyFromUtf8(
+                  (java.lang.String) ref);
+          returnValue_ = b;
+          return b;
+        } else {
+          return (com.google.protobuf.ByteString) ref;
+        }
+      }
+      /**
+       * <code>string return_value = 4;</code>
+       */
+      public Builder setReturnValue(
+          java.lang.String value) {
+        if (value == null) {
+    throw new NullPointerException();
+  }
+  
+        returnValue_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>string return_value = 4;</code>
+       */
+      public Builder clearReturnValue() {
+        
+        returnValue_ = getDefaultInstance().getReturnValue();
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>string return_value = 4;</code>
+       */
+      public Builder setReturnValueBytes(
+          com.google.protobuf.ByteString value) {
+        if (value == null) {
+    throw new NullPointerException();
+  }
+  checkByteStringIsUtf8(value);
+        
+        returnValue_ = value;
+        onChanged();
+        return this;
+      }
+
+      private java.lang.Object exception_ = "";
+      /**
+       * <code>string exception = 6;</code>
+       */
+      public java.lang.String getException() {
+        java.lang.Object ref = exception_;
+        if (!(ref instanceof java.lang.String)) {
+          com.google.protobuf.ByteString bs =
+              (com.google.protobuf.ByteString) ref;
+          java.lang.String s = bs.toStringUtf8();
+          exception_ = s;
+          return s;
+        } else {
+          return (java.lang.String) ref;
+        }
+      }
+      /**
+       * <code>string exception = 6;</code>
+       */
+      public com.google.protobuf.ByteString
+          getExceptionBytes() {
+        java.lang.Object ref = exception_;
+        if (ref instanceof String) {
+          com.google.protobuf.ByteString b = 
+              com.google.protobuf.ByteString.copyFromUtf8(
+                  (java.lang.String) ref);
+          exception_ = b;
+          return b;
+        } else {
+          return (com.google.protobuf.ByteString) ref;
+        }
+      }
+      /**
+       * <code>string exception = 6;</code>
+       */
+      public Builder setException(
+          java.lang.String value) {
+        if (value == null) {
+    throw new NullPointerException();
+  }
+  
+        exception_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>string exception = 6;</code>
+       */
+      public Builder clearException() {
+        
+        exception_ = getDefaultInstance().getException();
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>string exception = 6;</code>
+       */
+      public Builder setExceptionBytes(
+          com.google.protobuf.ByteString value) {
+        if (value == null) {
+    throw new NullPointerException();
+  }
+  checkByteStringIsUtf8(value);
+        
+        exception_ = value;
+        onChanged();
+        return this;
+      }
+
+      private agent.MethodProtos.MethodCall.Instruction instruction_ = null;
+      private com.google.protobuf.SingleFieldBuilderV3<
+          agent.MethodProtos.MethodCall.Instruction, agent.MethodProtos.MethodCall.Instruction.Builder, agent.MethodProtos.MethodCall.InstructionOrBuilder> instructionBuilder_;
+      /**
+       * <pre>
+       * INSTRUCTION
+       * </pre>
+       *
+       * <code>.agent.MethodCall.Instruction instruction = 5;</code>
+       */
+      public boolean hasInstruction() {
+        return instructionBuilder_ != null || instruction_ != null;
+      }
+      /**
+       * <pre>
+       * INSTRUCTION
+       * </pre>
+       *
+       * <code>.agent.MethodCall.Instruction instruction = 5;</code>
+       */
+      public agent.MethodProtos.MethodCall.Instruction getInstruction() {
+        if (instructionBuilder_ == null) {
+          return instruction_ == null ? agent.MethodProtos.MethodCall.Instruction.getDefaultInstance() : instruction_;
+        } else {
+          return instructionBuilder_.getMessage();
+        }
+      }
+      /**
+       * <pre>
+       * INSTRUCTION
+       * </pre>
+       *
+       * <code>.agent.MethodCall.Instruction instruction = 5;</code>
+       */
+      public Builder setInstruction(agent.MethodProtos.MethodCall.Instruction value) {
+        if (instructionBuilder_ == null) {
+          if (value == null) {
+            throw new NullPointerException();
+          }
+          instruction_ = value;
+          onChanged();
+        } else {
+          instructionBuilder_.setMessage(value);
+        }
+
+        return this;
+      }
+      /**
+       * <pre>
+       * INSTRUCTION
+       * </pre>
+       *
+       * <code>.agent.MethodCall.Instruction instruction = 5;</code>
+       */
+      public Builder setInstruction(
+          agent.MethodProtos.MethodCall.Instruction.Builder builderForValue) {
+        if (instructionBuilder_ == null) {
+          instruction_ = builderForValue.build();
+          onChanged();
+        } else {
+          instructionBuilder_.setMessage(builderForValue.build());
+        }
+
+        return this;
+      }
+      /**
+       * <pre>
+       * INSTRUCTION
+       * </pre>
+       *
+       * <code>.agent.MethodCall.Instruction instruction = 5;</code>
+       */
+      public Builder mergeInstruction(agent.MethodProtos.MethodCall.Instruction value) {
+        if (instructionBuilder_ == null) {
+          if (instruction_ != null) {
+            instruction_ =
+              agent.MethodProtos.MethodCall.Instruction.newBuilder(instruction_).mergeFrom(value).buildPartial();
+          } else {
+            instruction_ = value;
+          }
+          onChanged();
+        } else {
+          instructionBuilder_.mergeFrom(value);
+        }
+
+        return this;
+      }
+      /**
+       * <pre>
+       * INSTRUCTION
+       * </pre>
+       *
+       * <code>.agent.MethodCall.Instruction instruction = 5;</code>
+       */
+      public Builder clearInstruction() {
+        if (instructionBuilder_ == null) {
+          instruction_ = null;
+          onChanged();
+        } else {
+          instruction_ = null;
+          instructionBuilder_ = null;
+        }
+
+        return this;
+      }
+      /**
+       * <pre>
+       * INSTRUCTION
+       * </pre>
+       *
+       * <code>.agent.MethodCall.Instruction instruction = 5;</code>
+       */
+      public agent.MethodProtos.MethodCall.Instruction.Builder getInstructionBuilder() {
+        
+        onChanged();
+        return getInstructionFieldBuilder().getBuilder();
+      }
+      /**
+       * <pre>
+       * INSTRUCTION
+       * </pre>
+       *
+       * <code>.agent.MethodCall.Instruction instruction = 5;</code>
+       */
+      public agent.MethodProtos.MethodCall.InstructionOrBuilder getInstructionOrBuilder() {
+        if (instructionBuilder_ != null) {
+          return instructionBuilder_.getMessageOrBuilder();
+        } else {
+          return instruction_ == null ?
+              agent.MethodProtos.MethodCall.Instruction.getDefaultInstance() : instruction_;
+        }
+      }
+      /**
+       * <pre>
+       * INSTRUCTION
+       * </pre>
+       *
+       * <code>.agent.MethodCall.Instruction instruction = 5;</code>
+       */
+      private com.google.protobuf.SingleFieldBuilderV3<
+          agent.MethodProtos.MethodCall.Instruction, agent.MethodProtos.MethodCall.Instruction.Builder, agent.MethodProtos.MethodCall.InstructionOrBuilder> 
+          getInstructionFieldBuilder() {
+        if (instructionBuilder_ == null) {
+          instructionBuilder_ = new com.google.protobuf.SingleFieldBuilderV3<
+              agent.MethodProtos.MethodCall.Instruction, agent.MethodProtos.MethodCall.Instruction.Builder, agent.MethodProtos.MethodCall.InstructionOrBuilder>(
+                  getInstruction(),
+                  getParentForChildren(),
+                  isClean());
+          instruction_ = null;
+        }
+        return instructionBuilder_;
+      }
+      @java.lang.Override
+      public final Builder setUnknownFields(
+          final com.google.protobuf.UnknownFieldSet unknownFields) {
+        return super.setUnknownFieldsProto3(unknownFields);
+      }
+
+      @java.lang.Override
+      public final Builder mergeUnknownFields(
+          final com.google.protobuf.UnknownFieldSet unknownFields) {
+        return super.mergeUnknownFields(unknownFields);
+      }
+
+
+      // @@protoc_insertion_point(builder_scope:agent.TraceEvent)
+    }
+
+    // @@protoc_insertion_point(class_scope:agent.TraceEvent)
+    private static final agent.MethodProtos.TraceEvent DEFAULT_INSTANCE;
     static {
-      DEFAULT_INSTANCE = new agent.MethodProtos.MethodCall();
+      DEFAULT_INSTANCE = new agent.MethodProtos.TraceEvent();
     }
 
-    public static agent.MethodProtos.MethodCall getDefaultInstance() {
+    public static agent.MethodProtos.TraceEvent getDefaultInstance() {
       return DEFAULT_INSTANCE;
     }
 
-    private static final com.google.protobuf.Parser<MethodCall>
-        PARSER = new com.google.protobuf.AbstractParser<MethodCall>() {
-      public MethodCall parsePartialFrom(
+    private static final com.google.protobuf.Parser<TraceEvent>
+        PARSER = new com.google.protobuf.AbstractParser<TraceEvent>() {
+      @java.lang.Override
+      public TraceEvent parsePartialFrom(
           com.google.protobuf.CodedInputStream input,
           com.google.protobuf.ExtensionRegistryLite extensionRegistry)
           throws com.google.protobuf.InvalidProtocolBufferException {
-        return new MethodCall(input, extensionRegistry);
+        return new TraceEvent(input, extensionRegistry);
       }
     };
 
-    public static com.google.protobuf.Parser<MethodCall> parser() {
+    public static com.google.protobuf.Parser<TraceEvent> parser() {
       return PARSER;
     }
 
     @java.lang.Override
-    public com.google.protobuf.Parser<MethodCall> getParserForType() {
+    public com.google.protobuf.Parser<TraceEvent> getParserForType() {
       return PARSER;
     }
 
-    public agent.MethodProtos.MethodCall getDefaultInstanceForType() {
+    @java.lang.Override
+    public agent.MethodProtos.TraceEvent getDefaultInstanceForType() {
       return DEFAULT_INSTANCE;
     }
 
@@ -4630,6 +6537,11 @@ public final class MethodProtos {
   private static final 
     com.google.protobuf.GeneratedMessageV3.FieldAccessorTable
       internal_static_agent_MethodCall_Instruction_Variable_fieldAccessorTable;
+  private static final com.google.protobuf.Descriptors.Descriptor
+    internal_static_agent_TraceEvent_descriptor;
+  private static final 
+    com.google.protobuf.GeneratedMessageV3.FieldAccessorTable
+      internal_static_agent_TraceEvent_fieldAccessorTable;
 
   public static com.google.protobuf.Descriptors.FileDescriptor
       getDescriptor() {
@@ -4639,7 +6551,7 @@ public final class MethodProtos {
       descriptor;
   static {
     java.lang.String[] descriptorData = {
-      "\n\021method_call.proto\022\005agent\"\274\005\n\nMethodCal" +
+      "\n\021method_call.proto\022\005agent\"\371\005\n\nMethodCal" +
       "l\022\021\n\tsignature\030\001 \001(\t\022.\n\004type\030\002 \001(\0162 .age" +
       "nt.MethodCall.MethodCallType\022,\n\006caller\030\003" +
       " \001(\0132\034.agent.MethodCall.CallerInfo\022 \n\005ca" +
@@ -4647,17 +6559,26 @@ public final class MethodProtos {
       "ions\030\005 \003(\0132\035.agent.MethodCall.Instructio" +
       "n\022\020\n\010duration\030\006 \001(\003\022\025\n\rnew_thread_id\030\007 \001" +
       "(\003\022\r\n\005depth\030\010 \001(\005\022\024\n\014param_values\030\t \003(\t\022" +
-      "\024\n\014return_value\030\n \001(\t\032/\n\nCallerInfo\022\020\n\010f" +
-      "ilename\030\001 \001(\t\022\017\n\007linenum\030\002 \001(\005\032\347\001\n\013Instr" +
-      "uction\022/\n\004type\030\001 \001(\0162!.agent.MethodCall." +
-      "InstructionType\0228\n\010variable\030\002 \001(\0132&.agen" +
-      "t.MethodCall.Instruction.Variable\022\r\n\005val" +
-      "ue\030\003 \001(\t\022\017\n\007linenum\030\004 \001(\005\022\026\n\016call_signat" +
-      "ure\030\005 \001(\t\0325\n\010Variable\022\r\n\005index\030\001 \001(\005\022\014\n\004" +
-      "name\030\002 \001(\t\022\014\n\004type\030\003 \001(\t\".\n\016MethodCallTy" +
-      "pe\022\n\n\006NORMAL\020\000\022\020\n\014THREAD_START\020\001\"7\n\017Inst" +
-      "ructionType\022\010\n\004READ\020\000\022\t\n\005WRITE\020\001\022\017\n\013METH" +
-      "OD_CALL\020\002B\025\n\005agentB\014MethodProtosb\006proto3"
+      "\024\n\014return_value\030\n \001(\t\022\021\n\texception\030\013 \001(\t" +
+      "\032/\n\nCallerInfo\022\020\n\010filename\030\001 \001(\t\022\017\n\007line" +
+      "num\030\002 \001(\005\032\221\002\n\013Instruction\022/\n\004type\030\001 \001(\0162" +
+      "!.agent.MethodCall.InstructionType\0228\n\010va" +
+      "riable\030\002 \001(\0132&.agent.MethodCall.Instruct" +
+      "ion.Variable\022\r\n\005value\030\003 \001(\t\022\017\n\007linenum\030\004" +
+      " \001(\005\022\026\n\016call_signature\030\005 \001(\t\022\022\n\nlong_val" +
+      "ue\030\006 \001(\022\022\024\n\014double_value\030\007 \001(\001\0325\n\010Variab" +
+      "le\022\r\n\005index\030\001 \001(\005\022\014\n\004name\030\002 \001(\t\022\014\n\004type\030" +
+      "\003 \001(\t\".\n\016MethodCallType\022\n\n\006NORMAL\020\000\022\020\n\014T" +
+      "HREAD_START\020\001\"7\n\017InstructionType\022\010\n\004READ" +
+      "\020\000\022\t\n\005WRITE\020\001\022\017\n\013METHOD_CALL\020\002\"\210\002\n\nTrace" +
+      "Event\022)\n\004type\030\001 \001(\0162\033.agent.TraceEvent.E" +
+      "ventType\022\037\n\004call\030\002 \001(\0132\021.agent.MethodCal" +
+      "l\022\020\n\010duration\030\003 \001(\003\022\024\n\014return_value\030\004 \001(" +
+      "\t\022\021\n\texception\030\006 \001(\t\0222\n\013instruction\030\005 \001(" +
+      "\0132\035.agent.MethodCall.Instruction\"?\n\tEven" +
+      "tType\022\020\n\014METHOD_ENTER\020\000\022\017\n\013METHOD_EXIT\020\001" +
+      "\022\017\n\013INSTRUCTION\020\002B\025\n\005agentB\014MethodProtos" +
+      "b\006proto3"
     };
     com.google.protobuf.Descriptors.FileDescriptor.InternalDescriptorAssigner assigner =
         new com.google.protobuf.Descriptors.FileDescriptor.    InternalDescriptorAssigner() {
@@ -4676,7 +6597,7 @@ public final class MethodProtos {
     internal_static_agent_MethodCall_fieldAccessorTable = new
       com.google.protobuf.GeneratedMessageV3.FieldAccessorTable(
         internal_static_agent_MethodCall_descriptor,
-        new java.lang.String[] { "Signature", "Type", "Caller", "Calls", "Instructions", "Duration", "NewThreadId", "Depth", "ParamValues", "ReturnValue", });
+        new java.lang.String[] { "Signature", "Type", "Caller", "Calls", "Instructions", "Duration", "NewThreadId", "Depth", "ParamValues", "ReturnValue", "Exception", });
     internal_static_agent_MethodCall_CallerInfo_descriptor =
       internal_static_agent_MethodCall_descriptor.getNestedTypes().get(0);
     internal_static_agent_MethodCall_CallerInfo_fieldAccessorTable = new
@@ -4688,13 +6609,19 @@ public final class MethodProtos {
     internal_static_agent_MethodCall_Instruction_fieldAccessorTable = new
       com.google.protobuf.GeneratedMessageV3.FieldAccessorTable(
         internal_static_agent_MethodCall_Instruction_descriptor,
-        new java.lang.String[] { "Type", "Variable", "Value", "Linenum", "CallSignature", });
+        new java.lang.String[] { "Type", "Variable", "Value", "Linenum", "CallSignature", "LongValue", "DoubleValue", });
     internal_static_agent_MethodCall_Instruction_Variable_descriptor =
       internal_static_agent_MethodCall_Instruction_descriptor.getNestedTypes().get(0);
     internal_static_agent_MethodCall_Instruction_Variable_fieldAccessorTable = new
       com.google.protobuf.GeneratedMessageV3.FieldAccessorTable(
         internal_static_agent_MethodCall_Instruction_Variable_descriptor,
         new java.lang.String[] { "Index", "Name", "Type", });
+    internal_static_agent_TraceEvent_descriptor =
+      getDescriptor().getMessageTypes().get(1);
+    internal_static_agent_TraceEvent_fieldAccessorTable = new
+      com.google.protobuf.GeneratedMessageV3.FieldAccessorTable(
+        internal_static_agent_TraceEvent_descriptor,
+        new java.lang.String[] { "Type", "Call", "Duration", "ReturnValue", "Exception", "Instruction", });
   }
 
   // @@protoc_insertion_point(outer_class_scope)
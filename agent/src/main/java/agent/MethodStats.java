@@ -0,0 +1,170 @@
+package agent;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/* Per-method latency histograms and call-edge counts of aggregate mode.
+   A daemon thread rewrites stats.txt every dumpInterval, and once more
+   on shutdown, so the output stays the same size however long the
+   program runs. */
+class MethodStats extends Thread {
+
+  static final String FILE_NAME = "stats.txt";
+
+
+  private static final int INITIAL_SIZE = 1024;
+  private static final int EDGE_CAPACITY = 1 << 16;
+
+  private static volatile LatencyHistogram[] histograms = new LatencyHistogram[INITIAL_SIZE];
+  private static final CallEdgeTable edges = new CallEdgeTable(EDGE_CAPACITY);
+  private static MethodStats dumper;
+
+  private final File file;
+  private final long intervalNanos;
+  private volatile boolean running;
+
+  private MethodStats(File file, long intervalMillis) {
+    super("asm-profiler-stats");
+    setDaemon(true);
+    this.file = file;
+    this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMillis);
+    this.running = true;
+  }
+
+  /**
+   * Start dumping to the stats file of a trace directory.
+   * @param dir  trace output directory
+   */
+  static synchronized void start(String dir) {
+    File file = new File(dir, FILE_NAME);
+    file.getParentFile().mkdirs();
+    dumper = new MethodStats(file, AgentConfig.dumpInterval);
+    dumper.start();
+  }
+
+  /**
+   * Stop the dumper thread and write the final stats.
+   */
+  static synchronized void shutdown() {
+    if (dumper != null) {
+      dumper.running = false;
+      LockSupport.unpark(dumper);
+      try {
+        dumper.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      dumper.dump();
+      dumper = null;
+    }
+  }
+
+  /**
+   * Count a call from one method to another.
+   * @param caller  id of the calling method or -1 for a root call
+   * @param callee  id of the called method
+   */
+  static void recordCall(int caller, int callee) {
+    edges.increment(caller, callee);
+  }
+
+  /**
+   * Add the duration of a returned call to its method's histogram.
+   * @param methodId  id of the method
+   * @param duration  call duration
+   */
+  static void recordDuration(int methodId, long duration) {
+    LatencyHistogram[] table = histograms;
+    LatencyHistogram histogram = methodId < table.length ? table[methodId] : null;
+    if (histogram == null) {
+      histogram = createHistogram(methodId);
+    }
+    histogram.record(duration);
+  }
+
+  private static synchronized LatencyHistogram createHistogram(int methodId) {
+    LatencyHistogram[] table = histograms;
+    if (methodId >= table.length) {
+      table = Arrays.copyOf(table, Math.max(table.length * 2, methodId + 1));
+    }
+    if (table[methodId] == null) {
+      table[methodId] = new LatencyHistogram();
+    }
+    histograms = table;
+    return table[methodId];
+  }
+
+  @Override
+  public void run() {
+    while (running) {
+      LockSupport.parkNanos(this, intervalNanos);
+      if (running) {
+        dump();
+      }
+    }
+  }
+
+  /**
+   * Write the current stats to a temporary file and move
+   *  it over the last dump, so readers never see half of one.
+   */
+  private synchronized void dump() {
+    File temp = new File(file.getPath() + ".tmp");
+    try (PrintStream out = new PrintStream(temp, "UTF-8")) {
+      print(out);
+    } catch (IOException e) {
+      System.out.println("ERROR : " + e);
+      return;
+    }
+
+    try {
+      Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException e) {
+      System.out.println("ERROR : " + e);
+    }
+  }
+
+  private static void print(PrintStream out) {
+    out.println("# method\tcalls\ttotal_ns\tp50_ns\tp99_ns\tp999_ns\tmax_ns\ttier");
+    LatencyHistogram[] table = histograms;
+    for (int id = 0; id < table.length; id++) {
+      LatencyHistogram histogram = table[id];
+      if (histogram == null || histogram.getCount() == 0) {
+        continue;
+      }
+      String signature = TraceDictionary.getMethod(id);
+      out.println(signature
+          + "\t" + histogram.getCount()
+          + "\t" + histogram.getTotal()
+          + "\t" + histogram.getPercentile(0.5)
+          + "\t" + histogram.getPercentile(0.99)
+          + "\t" + histogram.getPercentile(0.999)
+          + "\t" + histogram.getMax()
+          + "\t" + (HotMethods.isDeinstrumented(signature) ? AgentConfig.adaptiveTier : AgentConfig.TIER_FULL));
+    }
+
+    out.println();
+    out.println("# caller\tcallee\tcalls");
+    for (int slot = 0; slot < edges.size(); slot++) {
+      if (edges.isEmpty(slot)) {
+        continue;
+      }
+      int caller = edges.getCaller(slot);
+      out.println((caller == -1 ? "<root>" : TraceDictionary.getMethod(caller))
+          + "\t" + TraceDictionary.getMethod(edges.getCallee(slot))
+          + "\t" + edges.getCount(slot));
+    }
+
+    if (edges.getDropped() > 0) {
+      out.println();
+      out.println("# call-edge table full, " + edges.getDropped() + " call(s) not counted");
+    }
+  }
+
+}
@@ -1,30 +1,41 @@
 package agent;
 
+import com.google.protobuf.CodedOutputStream;
 import org.objectweb.asm.tree.LocalVariableNode;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.PrintStream;
-import java.io.UnsupportedEncodingException;
+import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Stack;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class ProfileLogger {
 
   public static String APP_DIR;
   private static final String OUTFILE_FORMAT = "/thread_%d.txt";
-  private static final String ENS = "UTF8";
-
-  private static Map<Long, ProfileLogger> logMap = Collections.synchronizedMap(new HashMap<>());
-  private static Map<Long, MethodCallNode> methodCallMap = Collections.synchronizedMap(new HashMap<>());
-  private static final Map<String, List<LocalVariable>> methodArgMap = Collections.synchronizedMap(new HashMap<>());
-  private static final Map<String, List<LocalVariable>> allLocalsMap = Collections.synchronizedMap(new HashMap<>());
+  private static final String EVENTS_OUTFILE_FORMAT = "/thread_%d.events";
+  private static final String COMPACT_OUTFILE_FORMAT = "/thread_%d.trace";
+  private static final int STREAM_BUFFER_SIZE = 1 << 16;
+
+  private static final Map<Long, ProfileLogger> logMap = new ConcurrentHashMap<>();
+  private static final Map<Long, MethodCallNode> methodCallMap = new ConcurrentHashMap<>();
+  private static final Map<String, List<LocalVariable>> methodArgMap = new ConcurrentHashMap<>();
+
+  private static final ThreadLocal<ProfileLogger> localLogger = new ThreadLocal<ProfileLogger>() {
+    @Override
+    protected ProfileLogger initialValue() {
+      return getInstance(Thread.currentThread().getId());
+    }
+  };
 
   /**
    * Register method local variable metadata.
@@ -32,26 +43,38 @@ public class ProfileLogger {
    * @param methodName  method name
    * @param methodDesc  method descriptor
    * @param locals      list of local variable metadata
+   * @return  registered local variables, with their ids
    */
-  protected static void registerLocals(
+  protected static List<LocalVariable> registerLocals(
       String className,
       String methodName,
       String methodDesc,
       List<LocalVariableNode> locals
   ) {
     String fullSig = className + "." + methodName + methodDesc;
+    int methodId = TraceDictionary.registerMethod(fullSig);
 
-    // put method args
-    methodArgMap.put(fullSig, getMethodParameters(methodDesc, locals));
-
-    // put all locals
     List<LocalVariable> localList = new ArrayList<>();
     for (LocalVariableNode local : locals) {
-      localList.add(new LocalVariable(local));
+      LocalVariable variable = new LocalVariable(local);
+      variable.id = TraceDictionary.registerVariable(methodId, variable);
+      localList.add(variable);
     }
-    allLocalsMap.put(fullSig, localList);
+    putLocals(fullSig, methodDesc, localList);
+    return localList;
   }
 
+  /**
+   * Store the local variables of a method, either just
+   *  registered or restored from the class cache.
+   * @param fullSig     full method signature
+   * @param methodDesc  method descriptor
+   * @param locals      local variables with their ids
+   */
+  protected static void putLocals(String fullSig, String methodDesc, List<LocalVariable> locals) {
+    // put method args
+    methodArgMap.put(fullSig, getMethodParameters(methodDesc, locals));
+  }
 
   /**
    * Determine if this is a static method based on local
@@ -59,9 +82,9 @@ public class ProfileLogger {
    * @param locals  list of local variable metadata
    * @return  true if static method, false otherwise
    */
-  private static boolean isStatic(List<LocalVariableNode> locals) {
+  private static boolean isStatic(List<LocalVariable> locals) {
     boolean isStatic = true;
-    for (LocalVariableNode local : locals) {
+    for (LocalVariable local : locals) {
       if (local.index == 0 && local.name.equals("this")) {
         isStatic = false;
         break;
@@ -86,12 +109,12 @@ public class ProfileLogger {
    * @param locals      list of method's local variables
    * @return sorted list of the method's parameters
    */
-  private static List<LocalVariable> getMethodParameters(String methodDesc, List<LocalVariableNode> locals) {
+  private static List<LocalVariable> getMethodParameters(String methodDesc, List<LocalVariable> locals) {
     List<LocalVariable> methodArgs = new ArrayList<>();
     int params = AgentUtils.getMethodParamTypes(methodDesc).size();
 
     boolean isStatic = isStatic(locals);
-    for (LocalVariableNode local : locals) {
+    for (LocalVariable local : locals) {
       if (local.index < params + ((!isStatic) ? 1 : 0)) {
         if (isStatic || local.index > 0) {
           methodArgs.add(new LocalVariable(local));
@@ -109,43 +132,83 @@ public class ProfileLogger {
     return methodArgs;
   }
 
-  private static class LastLine {
-    int lastLine;
-  }
+  private static final int INITIAL_STACK_SIZE = 64;
 
-  private Stack<Map<Integer, LocalVariable>> localsTableStack;
-	private PrintStream out;
+	private OutputStream out;
+  private EventWriter events;
+  private InstructionStore instructions;
   private long threadId;
-  private MethodCallNode lastNode;
-  private MethodCallNode initCache;
-  private Stack<LastLine> lastLineStack;
+  private boolean streaming;
+  private boolean aggregating;
+  private MethodCallNode[] callStack;
+  private int[] callSiteStack;
+  private int[] methodIdStack;
+  // last line logged by each call on the stack
+  private int[] lineStack;
+  private int depth;
+  private SplittableRandom sampler;
+  private int skipDepth;
+  private boolean inert;
+  private boolean adaptive;
+  private long[] adaptiveCalls;
+  private long[] adaptiveNanos;
+
+  // handed out while tracing is disabled, see Tracing
+  private static final ProfileLogger INERT = new ProfileLogger();
 
 	/**
-	 * Using a synchronized Map, fetches/creates
-	 * new instances based on unique key of the
-	 * thread id of current Thread.
+	 * Fetches the instance of the current Thread
+	 * from a ThreadLocal, creating it on the
+	 * Thread's first call. While tracing is
+	 * disabled, this is an inert instance instead.
 	 *
 	 * @return inst  appropriate instance
 	 */
 	public static ProfileLogger getInstance() {
-    return getInstance(Thread.currentThread().getId());
+    return Tracing.enabled ? localLogger.get() : INERT;
 	}
 
+  /**
+   * Fetches/creates the instance for a thread id
+   *  from the concurrent registry of all instances.
+   *
+   * @param tid  thread id
+   * @return inst  appropriate instance
+   */
   public static ProfileLogger getInstance(long tid) {
-    ProfileLogger inst = null;
-
-    synchronized (logMap) {
-      if (!logMap.containsKey(tid)) {
-        inst = new ProfileLogger(tid);
-        logMap.put(tid, inst);
-      } else {
+    ProfileLogger inst = logMap.get(tid);
+    if (inst == null) {
+      synchronized (logMap) {
         inst = logMap.get(tid);
+        if (inst == null) {
+          inst = new ProfileLogger(tid);
+          logMap.put(tid, inst);
+        }
       }
     }
-
     return inst;
   }
 
+  /**
+   * Flush and close the output of every instance,
+   *  called once when the JVM shuts down.
+   */
+  public static void shutdown() {
+    TraceFlusher.shutdown();
+    MethodStats.shutdown();
+    for (ProfileLogger inst : logMap.values()) {
+      if (inst.out == null) {
+        continue;
+      }
+      try {
+        inst.out.close();
+      } catch (IOException e) {
+        System.out.println("ERROR : " + e);
+      }
+    }
+    TraceFlusher.reportDropped();
+  }
+
 
   /**
 	 * Creates an instance with a corresponding output
@@ -157,11 +220,28 @@ public class ProfileLogger {
 	private ProfileLogger(long tid) {
 
 	  this.threadId = tid;
-	  this.initCache = null;
-	  this.lastLineStack = new Stack<>();
-	  this.localsTableStack = new Stack<>();
-
-		String fileName = APP_DIR + String.format(OUTFILE_FORMAT, tid);
+	  this.streaming = AgentConfig.isStreaming();
+	  this.callStack = new MethodCallNode[INITIAL_STACK_SIZE];
+	  this.callSiteStack = new int[INITIAL_STACK_SIZE];
+	  this.methodIdStack = new int[INITIAL_STACK_SIZE];
+	  this.depth = 0;
+	  this.lineStack = new int[INITIAL_STACK_SIZE];
+	  this.sampler = new SplittableRandom(AgentConfig.sampleSeed + tid);
+	  this.skipDepth = 0;
+	  this.aggregating = AgentConfig.isAggregating();
+	  this.adaptive = AgentConfig.adaptive;
+	  this.adaptiveCalls = new long[0];
+	  this.adaptiveNanos = new long[0];
+
+	  if (aggregating) {
+	    // only shared histograms, no trace file
+	    return;
+	  }
+
+		String fileName = APP_DIR + String.format(
+				!streaming ? OUTFILE_FORMAT : AgentConfig.isCompact() ? COMPACT_OUTFILE_FORMAT : EVENTS_OUTFILE_FORMAT,
+				tid
+		);
 
 		File file;
 
@@ -169,7 +249,12 @@ public class ProfileLogger {
 
 			file = new File(fileName);
 			file.getParentFile().mkdirs();
-			this.out = new PrintStream(file, ENS);
+			this.out = openOutput(file);
+			if (streaming) {
+				this.events = AgentConfig.isCompact() ? new CompactEventWriter(out) : new ProtoEventWriter(out);
+			} else {
+				this.instructions = new InstructionStore();
+			}
 
 		} catch (SecurityException e) {
 			System.err.println("SecurityException!");
@@ -177,19 +262,110 @@ public class ProfileLogger {
 		} catch (FileNotFoundException e) {
 			System.err.println(fileName + " not found.");
 			System.exit(-1);
-		} catch (UnsupportedEncodingException e) {
-			System.err.println(ENS + " not found.");
+		} catch (IOException e) {
+			System.err.println(fileName + " could not be mapped.");
 			System.exit(-1);
 		}
 
 	}
 
+  /**
+   * Creates the inert instance, it has no output file
+   *  and its probes return right away.
+   */
+  private ProfileLogger() {
+    this.inert = true;
+    this.skipDepth = 1;
+    this.depth = 0;
+  }
+
+  /**
+   * Open the output of a trace file based on the agent config.
+   * @param file  trace file
+   * @return  output stream where each write is one record
+   */
+  private OutputStream openOutput(File file) throws IOException {
+    if (AgentConfig.isMapped()) {
+      return new MappedOutputStream(file, AgentConfig.segmentSize);
+    }
+
+    OutputStream fileOut = new FileOutputStream(file);
+    if (AgentConfig.isAsync()) {
+      return new RingBufferOutputStream(
+          fileOut,
+          AgentConfig.bufferSize,
+          AgentConfig.overflow.equals(AgentConfig.OVERFLOW_BLOCK)
+      );
+    } else if (streaming) {
+      // events are small and frequent, flushed whenever a root call returns
+      return new BufferedOutputStream(fileOut, STREAM_BUFFER_SIZE);
+    }
+    return fileOut;
+  }
+
+  /**
+   * Decide whether the call being entered is recorded, called
+   *  before logMethodStart(). Nothing is recorded by the inert
+   *  instance. When sampling, each root call is recorded with
+   *  a chance of 1 in sampleRate, and calls under a root that
+   *  was not are only counted until it returns.
+   *
+   * @return  true if the call should be logged
+   */
+  public boolean sampleMethodStart() {
+    if (inert) {
+      return false;
+    }
+    if (skipDepth > 0) {
+      skipDepth++;
+      return false;
+    }
+    if (depth == 0 && AgentConfig.isSampling() && sampler.nextInt(AgentConfig.sampleRate) != 0) {
+      skipDepth = 1;
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Decide whether the call being exited was recorded, called
+   *  before logMethodDuration().
+   *
+   * @return  true if the call should be logged
+   */
+  public boolean sampleMethodEnd() {
+    if (inert) {
+      return false;
+    }
+    if (skipDepth > 0) {
+      skipDepth--;
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Logs the call-site of the next method call made
+   *  by the current method.
+   * @param callSite  call-site id assigned at instrumentation time
+   */
+  public void logCallSite(int callSite) {
+    if (depth > 0) {
+      callSiteStack[depth - 1] = callSite;
+    }
+  }
+
   /**
    * Logs a line number instruction.
    * @param line  line number
    */
 	public void logLineNumber(int line) {
-    lastLineStack.peek().lastLine = line;
+    if (skipDepth > 0) {
+      return;
+    }
+    if (depth > 0) {
+      lineStack[depth - 1] = line;
+    }
   }
 
 	/**
@@ -197,85 +373,94 @@ public class ProfileLogger {
 	 *  Thread including the thread id instead of the
 	 *  duration.
    *
-   * @param tid  thread id
+   * @param tid       thread id
+   * @param methodId  id of the start method
 	 */
-	public void logThreadStart(long tid, String methodSig) {
+	public void logThreadStart(long tid, int methodId) {
+    if (skipDepth > 0) {
+      return;
+    }
     MethodCallNode methodCall = new MethodCallNode(
-        getDepth() + 1,  // simulating being inside Thread.start()
-        methodSig,
+        depth,  // simulating being inside Thread.start()
+        TraceDictionary.getMethod(methodId),
         MethodProtos.MethodCall.MethodCallType.THREAD_START
     );
     methodCall.setNewThreadId(tid);
-    logMethodCallStart(methodCall);
+    logMethodCallStart(methodCall, methodId);
 	}
 
 	/**
 	 * Logs the start of a method call.
    *
-   * @param methodSig  full method-signature
-   * @param params     list representing input values
+   * @param methodId  id of the method
+   * @param params    list representing input values
 	 */
-	public void logMethodStart(String methodSig, String... params) {
-    lastLineStack.push(new LastLine());
-    MethodCallNode methodCall = new MethodCallNode(getDepth(), methodSig, params);
-    logMethodCallStart(methodCall);
-
-    Map<Integer, LocalVariable> localMap = new HashMap<>();
-    for (LocalVariable local : allLocalsMap.get(methodSig)) {
-      localMap.put(local.index, local);
-    }
-    localsTableStack.push(localMap);
+	public void logMethodStart(int methodId, String... params) {
+    String methodSig = TraceDictionary.getMethod(methodId);
+    MethodCallNode methodCall = new MethodCallNode(depth, methodSig, params);
+    logMethodCallStart(methodCall, methodId);
+    pushCall(methodCall, methodId);
 	}
 
   /**
    * Log a method call into the data-structure.
    * @param methodCall  method call node to log
+   * @param methodId    id of the called method
    */
-	private void logMethodCallStart(MethodCallNode methodCall) {
+	private void logMethodCallStart(MethodCallNode methodCall, int methodId) {
+    int callSite = -1;
 
     if (methodCall.getDepth() == 0) {
 
-      lastNode = methodCall;
-      methodCallMap.put(
-          threadId,
-          methodCall
-      );
+      if (!streaming) {
+        methodCallMap.put(
+            threadId,
+            methodCall
+        );
+      }
 
     } else {
 
-      StackTraceElement caller = getCaller(methodCall.getDepth());
-      methodCall.setCaller(
-          MethodProtos.MethodCall.CallerInfo.newBuilder()
-              .setFilename(caller.getFileName())
-              .setLinenum(caller.getLineNumber())
-              .build()
-      );
-
-      MethodCallNode parent = getLastNode(methodCall.getDepth() - 1);
+      callSite = callSiteStack[depth - 1];
+      methodCall.setCaller(TraceDictionary.getCallSite(callSite));
 
-      if (parent == null) {
-
-        // stack in cache
-        if (initCache != null) {
-          methodCallSetParent(methodCall, initCache);
-        }
-        initCache = methodCall;
-
-      } else {
-
-        // found in tree (not cache)
-        if (parent == lastNode) {
-          if (initCache != null) {
-            methodCallSetParent(methodCall, initCache);
-            initCache = null;
-          }
-        }
+      if (!streaming) {
+        methodCallSetParent(callStack[depth - 1], methodCall);
+      }
 
-        methodCallSetParent(parent, methodCall);
+    }
 
-      }
+    if (streaming) {
+      events.enter(methodCall, methodId, callSite);
+    }
+  }
 
+  /**
+   * Push a method call onto the shadow call-stack.
+   * @param methodCall  method call node that was entered (null in aggregate mode)
+   * @param methodId    id of the method
+   */
+  private void pushCall(MethodCallNode methodCall, int methodId) {
+    if (depth == callStack.length) {
+      callStack = Arrays.copyOf(callStack, depth * 2);
+      callSiteStack = Arrays.copyOf(callSiteStack, depth * 2);
+      methodIdStack = Arrays.copyOf(methodIdStack, depth * 2);
+      lineStack = Arrays.copyOf(lineStack, depth * 2);
     }
+    callSiteStack[depth] = -1;
+    methodIdStack[depth] = methodId;
+    lineStack[depth] = 0;
+    callStack[depth++] = methodCall;
+  }
+
+  /**
+   * Pop the current method call off of the shadow call-stack.
+   * @return  method call node that was exited
+   */
+  private MethodCallNode popCall() {
+    MethodCallNode methodCall = callStack[--depth];
+    callStack[depth] = null;
+    return methodCall;
   }
 
   /**
@@ -286,201 +471,332 @@ public class ProfileLogger {
   private void methodCallSetParent(MethodCallNode parent, MethodCallNode child) {
     child.setParent(parent);
     parent.getCalls().add(child);
-    parent.getInstructions().add(
-        MethodProtos.MethodCall.Instruction.newBuilder()
-            .setType(MethodProtos.MethodCall.InstructionType.METHOD_CALL)
-            .setLinenum(child.getCaller().getLinenum())
-            .setCallSignature(child.getSignature())
-            .build()
-    );
+    parent.addInstruction(instructions, instructions.addCall(parent.getLastInstruction()));
   }
 
 
+  /**
+   * Counts a method call in aggregate mode, where calls are
+   *  only tracked to know the caller of the next one.
+   * @param methodId  id of the method
+   */
+  public void countMethodStart(int methodId) {
+    MethodStats.recordCall(depth > 0 ? methodIdStack[depth - 1] : -1, methodId);
+    pushCall(null, methodId);
+  }
+
+  /**
+   * Adds the duration of a returned call to the histogram
+   *  of its method in aggregate mode.
+   * @param methodId  id of the method
+   * @param duration  method duration
+   */
+  public void countMethodDuration(int methodId, long duration) {
+    popCall();
+    if (adaptive) {
+      countCall(methodId, duration);
+    }
+    MethodStats.recordDuration(methodId, duration);
+  }
+
 	/**
 	 * Logs the end of a method call and its duration.
-   * @param methodSig  full method signature
-   * @param duration   method duration
+   * @param returnValue  value returned
+   * @param methodId     id of the method
+   * @param duration     method duration
 	 */
-	public void logMethodDuration(String returnValue, String methodSig, long duration) {
-
-    lastLineStack.pop();
-    localsTableStack.pop();
-
-    int depth = getDepth();
-    MethodCallNode last;
-
-    last = getLastNode(depth);
-
-    assert last != null;
-    assert last.getSignature().equals(methodSig);
-    last.setDuration(duration);
+	public void logMethodDuration(String returnValue, int methodId, long duration) {
+    MethodCallNode last = exitCall(methodId, duration);
     last.setReturnValue(returnValue);
 
-    if (depth == 0) {
-      try {
-        last.toProto().writeTo(out);
-      } catch (IOException e) {
-        System.out.println("ERROR : " + e);
-      }
+    if (streaming) {
+      events.exit(duration, returnValue);
     }
+    flushCall(last);
 	}
 
   /**
-   * Log a local variable read instruction.
-   * @param index  local variable index
-   * @param value  value of read
+   * Logs a method call that exited by throwing, called from
+   *  the handler around the method body before it rethrows.
+   * @param exception  exception thrown
+   * @param methodId   id of the method
+   * @param duration   method duration
    */
-  public void logLocalRead(int index, String value) {
-	  LocalVariable local = localsTableStack.peek().get(index);
-	  if (local != null) {
-
-      MethodProtos.MethodCall.Instruction insn =
-          MethodProtos.MethodCall.Instruction.newBuilder()
-              .setType(MethodProtos.MethodCall.InstructionType.READ)
-              .setVariable(
-                  MethodProtos.MethodCall.Instruction.Variable.newBuilder()
-                      .setName(local.name)
-                      .setIndex(local.index)
-                      .setType(local.desc)
-                      .build()
-              )
-              .setValue(value)
-              .setLinenum(lastLineStack.peek().lastLine)
-              .build();
-      logInstruction(insn);
+  public void logMethodThrow(Throwable exception, int methodId, long duration) {
+    MethodCallNode last = exitCall(methodId, duration);
+    String exceptionClass = exception.getClass().getName();
+    last.setException(exceptionClass);
 
+    if (streaming) {
+      events.exceptionExit(duration, exceptionClass);
     }
+    flushCall(last);
   }
 
   /**
-   * Log a local variable write instruction.
-   * @param index  local variable index
-   * @param value  value of write
+   * Pop an exited call off of the shadow call-stack.
+   * @param methodId  id of the method
+   * @param duration  method duration
+   * @return  method call node that was exited
    */
-  public void logLocalWrite(int index, String value) {
-    LocalVariable local = localsTableStack.peek().get(index);
-    if (local != null) {
-
-      MethodProtos.MethodCall.Instruction insn =
-          MethodProtos.MethodCall.Instruction.newBuilder()
-              .setType(MethodProtos.MethodCall.InstructionType.WRITE)
-              .setVariable(
-                  MethodProtos.MethodCall.Instruction.Variable.newBuilder()
-                      .setName(local.name)
-                      .setIndex(index)
-                      .setType(local.desc)
-                      .build()
-              )
-              .setValue(value)
-              .setLinenum(lastLineStack.peek().lastLine)
-              .build();
-      logInstruction(insn);
-
+  private MethodCallNode exitCall(int methodId, long duration) {
+    MethodCallNode last = popCall();
+    if (adaptive) {
+      countCall(methodId, duration);
     }
+
+    assert last.getSignature().equals(TraceDictionary.getMethod(methodId));
+    last.setDuration(duration);
+    return last;
   }
 
   /**
-   * Log a instruction into the data structure.
-   * @param insn  instruction to log
+   * Write the tree of an exited root call (tree mode), or
+   *  flush the events once back at the root (stream mode).
+   * @param last  method call node that was exited
    */
-	private void logInstruction(MethodProtos.MethodCall.Instruction insn) {
-    int depth = getDepth();
-    MethodCallNode last = getLastNode(depth);
+  private void flushCall(MethodCallNode last) {
+    if (depth != 0) {
+      return;
+    }
 
-    if (last != null) {
-      List<MethodProtos.MethodCall.Instruction> instr = last.getInstructions();
-      instr.add(insn);
+    if (streaming) {
+      try {
+        out.flush();
+      } catch (IOException e) {
+        System.out.println("ERROR : " + e);
+      }
     } else {
-      System.out.println("ERROR, cant find node.");
+      try {
+        // length-prefixed, a thread writes one tree per root call, in one
+        // write so a ring buffer keeps or drops the whole record
+        MethodProtos.MethodCall tree = last.toProto();
+        int size = tree.getSerializedSize();
+        byte[] record = new byte[CodedOutputStream.computeUInt32SizeNoTag(size) + size];
+        CodedOutputStream coded = CodedOutputStream.newInstance(record);
+        coded.writeUInt32NoTag(size);
+        tree.writeTo(coded);
+        coded.checkNoSpaceLeft();
+        out.write(record);
+      } catch (IOException e) {
+        System.out.println("ERROR : " + e);
+      }
+      instructions.clear();
     }
   }
 
-	/**
-	 * Get the caller File/linenum of a stack trace
-   *  based on method call's depth.
-   * @param depth  depth of call to return
-   * @return  stack element at that depth
-	 */
-	private static StackTraceElement getCaller(int depth) {
-    StackTraceElement[] trace = Thread.currentThread().getStackTrace();
-		return trace[trace.length - depth];
-	}
+  /**
+   * Count a returned call for HotMethods, in arrays only
+   *  this thread writes.
+   * @param methodId  id of the method
+   * @param duration  call duration
+   */
+  private void countCall(int methodId, long duration) {
+    if (methodId >= adaptiveCalls.length) {
+      int size = Math.max(adaptiveCalls.length * 2, methodId + 1);
+      adaptiveNanos = Arrays.copyOf(adaptiveNanos, size);
+      adaptiveCalls = Arrays.copyOf(adaptiveCalls, size);
+    }
+    adaptiveCalls[methodId]++;
+    adaptiveNanos[methodId] += duration;
+  }
 
-	/**
-	 * Get the actual depth of the method call based on
-   *  the stack-trace.
-	 *
-	 * @return depth  depth of method (main.depth == 0, main->test.depth == 1, ...)
-	 */
-  private static int getDepth() {
-    StackTraceElement[] trace = Thread.currentThread().getStackTrace();
-    int first = -1;
-    for (int i = 1; i < trace.length && first == -1; i++) {
-      if (!trace[i].getClassName().equals("agent.ProfileLogger")) {
-        first = i;
+  /**
+   * Sum the calls counted by every thread, read without
+   *  locking so the latest counts may be missed.
+   * @return  calls and total duration, indexed by method id
+   */
+  static long[][] getCallCounts() {
+    long[] calls = new long[0];
+    long[] nanos = new long[0];
+    for (ProfileLogger inst : logMap.values()) {
+      long[] instCalls = inst.adaptiveCalls;
+      long[] instNanos = inst.adaptiveNanos;
+      int size = Math.min(instCalls.length, instNanos.length);
+      if (size > calls.length) {
+        calls = Arrays.copyOf(calls, size);
+        nanos = Arrays.copyOf(nanos, size);
+      }
+      for (int id = 0; id < size; id++) {
+        calls[id] += instCalls[id];
+        nanos[id] += instNanos[id];
       }
     }
-    return (trace.length - 1) - first;
+    return new long[][] { calls, nanos };
   }
 
   /**
-   * Traverse from lastNode OR look inside init-cache for the last call
-   *  where node.depth == depth.
-   * @param depth  depth to search for
-   * @return node or null if can't be found
+   * Log a local variable read instruction.
+   * @param variableId  id of the variable, resolved by scope
+   * @param value       value of read (int, short, byte, char or boolean)
    */
-  private MethodCallNode getLastNode(int depth) {
-    if (lastNode == null) {
-      return null;
-    }
+  public void logLocalRead(int variableId, int value) {
+    logLocal(MethodProtos.MethodCall.InstructionType.READ, variableId, value);
+  }
 
-    MethodCallNode current = lastNode;
-    int step = lastNode.getDepth();
+  /**
+   * Log a local variable read instruction.
+   * @param variableId  id of the variable, resolved by scope
+   * @param value       value of read
+   */
+  public void logLocalRead(int variableId, long value) {
+    logLocal(MethodProtos.MethodCall.InstructionType.READ, variableId, value);
+  }
 
-    // find in tree
-    try {
-      if (step < depth) {
+  /**
+   * Log a local variable read instruction.
+   * @param variableId  id of the variable, resolved by scope
+   * @param value       value of read
+   */
+  public void logLocalRead(int variableId, float value) {
+    logLocal(MethodProtos.MethodCall.InstructionType.READ, variableId, (double) value);
+  }
 
-        // traverse down
-        while (step < depth) {
-          current = current.getLastCall();
-          step++;
-        }
+  /**
+   * Log a local variable read instruction.
+   * @param variableId  id of the variable, resolved by scope
+   * @param value       value of read
+   */
+  public void logLocalRead(int variableId, double value) {
+    logLocal(MethodProtos.MethodCall.InstructionType.READ, variableId, value);
+  }
 
+  /**
+   * Log a local variable read instruction.
+   * @param variableId  id of the variable, resolved by scope
+   * @param value       value of read
+   */
+  public void logLocalRead(int variableId, Object value) {
+    logLocal(MethodProtos.MethodCall.InstructionType.READ, variableId, value);
+  }
 
-      } else if (step > depth) {
+  /**
+   * Log a local variable write instruction.
+   * @param variableId  id of the variable, resolved by scope
+   * @param value       value of write (int, short, byte, char or boolean)
+   */
+  public void logLocalWrite(int variableId, int value) {
+    logLocal(MethodProtos.MethodCall.InstructionType.WRITE, variableId, value);
+  }
 
-        // traverse up
-        while (step > depth) {
-          current = current.getParent();
-          step--;
-        }
+  /**
+   * Log a local variable write instruction.
+   * @param variableId  id of the variable, resolved by scope
+   * @param value       value of write
+   */
+  public void logLocalWrite(int variableId, long value) {
+    logLocal(MethodProtos.MethodCall.InstructionType.WRITE, variableId, value);
+  }
 
-      }
-    } catch (NullPointerException e) {}
+  /**
+   * Log a local variable write instruction.
+   * @param variableId  id of the variable, resolved by scope
+   * @param value       value of write
+   */
+  public void logLocalWrite(int variableId, float value) {
+    logLocal(MethodProtos.MethodCall.InstructionType.WRITE, variableId, (double) value);
+  }
 
-    if (current != null) {
+  /**
+   * Log a local variable write instruction.
+   * @param variableId  id of the variable, resolved by scope
+   * @param value       value of write
+   */
+  public void logLocalWrite(int variableId, double value) {
+    logLocal(MethodProtos.MethodCall.InstructionType.WRITE, variableId, value);
+  }
 
-      // found in tree
-      lastNode = current;
-      return current;
+  /**
+   * Log a local variable write instruction.
+   * @param variableId  id of the variable, resolved by scope
+   * @param value       value of write
+   */
+  public void logLocalWrite(int variableId, Object value) {
+    logLocal(MethodProtos.MethodCall.InstructionType.WRITE, variableId, value);
+  }
 
-    } else if (initCache != null) {
+  /**
+   * Log a read/write of an integral local, the raw value
+   *  is formatted by the reader based on the variable type.
+   * @param type        READ or WRITE
+   * @param variableId  id of the variable, resolved by scope
+   * @param value       raw value
+   */
+  private void logLocal(MethodProtos.MethodCall.InstructionType type, int variableId, long value) {
+    if (skipDepth > 0) {
+      return;
+    }
+    LocalVariable local = TraceDictionary.getVariable(variableId);
+    if (local != null) {
+      int line = lineStack[depth - 1];
+      if (streaming) {
+        events.local(type, local, line, value);
+      } else {
+        logInstruction(instructions.addLong(lastInstruction(), type, local.id, line, value));
+      }
+    }
+  }
 
-      // look in cache
-      current = initCache;
-      while (current != null && depth > current.getDepth()) {
-        current = current.getLastCall();
+  /**
+   * Log a read/write of a floating-point local, the raw value
+   *  is formatted by the reader based on the variable type.
+   * @param type        READ or WRITE
+   * @param variableId  id of the variable, resolved by scope
+   * @param value       raw value
+   */
+  private void logLocal(MethodProtos.MethodCall.InstructionType type, int variableId, double value) {
+    if (skipDepth > 0) {
+      return;
+    }
+    LocalVariable local = TraceDictionary.getVariable(variableId);
+    if (local != null) {
+      int line = lineStack[depth - 1];
+      if (streaming) {
+        events.local(type, local, line, value);
+      } else {
+        logInstruction(instructions.addDouble(lastInstruction(), type, local.id, line, value));
       }
+    }
+  }
 
-      if (current != null && depth == current.getDepth()) {
-        return current;
+  /**
+   * Log a read/write of a reference local.
+   * @param type        READ or WRITE
+   * @param variableId  id of the variable, resolved by scope
+   * @param value       referenced object
+   */
+  private void logLocal(MethodProtos.MethodCall.InstructionType type, int variableId, Object value) {
+    if (skipDepth > 0) {
+      return;
+    }
+    LocalVariable local = TraceDictionary.getVariable(variableId);
+    if (local != null) {
+      int line = lineStack[depth - 1];
+      if (streaming) {
+        events.local(type, local, line, String.valueOf(value));
       } else {
-        return null;
+        logInstruction(instructions.addString(lastInstruction(), type, local.id, line, String.valueOf(value)));
       }
+    }
+  }
 
+  /**
+   * Get the last instruction record of the current call.
+   * @return  record index, or InstructionStore.NONE
+   */
+  private int lastInstruction() {
+    return depth > 0 ? callStack[depth - 1].getLastInstruction() : InstructionStore.NONE;
+  }
+
+  /**
+   * Log a instruction into the data structure (tree mode only).
+   * @param record  instruction record added to the store
+   */
+	private void logInstruction(int record) {
+    if (depth > 0) {
+      callStack[depth - 1].addInstruction(instructions, record);
     } else {
-      return null;
+      System.out.println("ERROR, cant find node.");
     }
   }
-}
\ No newline at end of file
+}
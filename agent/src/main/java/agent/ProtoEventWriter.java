@@ -0,0 +1,97 @@
+package agent;
+
+import com.google.protobuf.CodedOutputStream;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/* Writes each event as a delimited TraceEvent message. */
+class ProtoEventWriter implements EventWriter {
+
+  private static final int INITIAL_SCRATCH_SIZE = 256;
+
+  private final OutputStream out;
+  private byte[] scratch;
+
+  ProtoEventWriter(OutputStream out) {
+    this.out = out;
+    this.scratch = new byte[INITIAL_SCRATCH_SIZE];
+  }
+
+  @Override
+  public void enter(MethodCallNode methodCall, int methodId, int callSite) {
+    write(
+        MethodProtos.TraceEvent.newBuilder()
+            .setType(MethodProtos.TraceEvent.EventType.METHOD_ENTER)
+            .setCall(methodCall.toProto())
+            .build()
+    );
+  }
+
+  @Override
+  public void exit(long duration, String returnValue) {
+    write(
+        MethodProtos.TraceEvent.newBuilder()
+            .setType(MethodProtos.TraceEvent.EventType.METHOD_EXIT)
+            .setDuration(duration)
+            .setReturnValue(returnValue)
+            .build()
+    );
+  }
+
+  @Override
+  public void exceptionExit(long duration, String exception) {
+    write(
+        MethodProtos.TraceEvent.newBuilder()
+            .setType(MethodProtos.TraceEvent.EventType.METHOD_EXIT)
+            .setDuration(duration)
+            .setException(exception)
+            .build()
+    );
+  }
+
+  @Override
+  public void local(MethodProtos.MethodCall.InstructionType type, LocalVariable local, int line, long value) {
+    write(instruction(local.instructionBuilder(type, line).setLongValue(value).build()));
+  }
+
+  @Override
+  public void local(MethodProtos.MethodCall.InstructionType type, LocalVariable local, int line, double value) {
+    write(instruction(local.instructionBuilder(type, line).setDoubleValue(value).build()));
+  }
+
+  @Override
+  public void local(MethodProtos.MethodCall.InstructionType type, LocalVariable local, int line, String value) {
+    write(instruction(local.instructionBuilder(type, line).setValue(value).build()));
+  }
+
+  private MethodProtos.TraceEvent instruction(MethodProtos.MethodCall.Instruction insn) {
+    return MethodProtos.TraceEvent.newBuilder()
+        .setType(MethodProtos.TraceEvent.EventType.INSTRUCTION)
+        .setInstruction(insn)
+        .build();
+  }
+
+  /**
+   * Append an event to the output.
+   * @param event  event to write
+   */
+  private void write(MethodProtos.TraceEvent event) {
+    int size = event.getSerializedSize();
+    int length = CodedOutputStream.computeUInt32SizeNoTag(size) + size;
+    if (length > scratch.length) {
+      scratch = new byte[Math.max(length, scratch.length * 2)];
+    }
+
+    try {
+      // encode into a reused buffer so the event reaches out as one write
+      CodedOutputStream coded = CodedOutputStream.newInstance(scratch, 0, length);
+      coded.writeUInt32NoTag(size);
+      event.writeTo(coded);
+      out.write(scratch, 0, length);
+    } catch (IOException e) {
+      System.out.println("ERROR : " + e);
+    }
+  }
+
+}
@@ -0,0 +1,168 @@
+package agent;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.locks.LockSupport;
+
+/* Single-producer (the recording thread), single-consumer (TraceFlusher)
+   byte ring in front of a thread's trace file. The producer flags itself
+   as writing before it checks closed, and close() waits for the flag to
+   clear before its final drain: a record written during shutdown is
+   either written whole or dropped, never cut. */
+class RingBufferOutputStream extends OutputStream {
+
+  private static final long BLOCK_PARK_NANOS = 50000L;
+
+  private final byte[] buffer;
+  private final int capacity;
+  private final boolean block;
+  private final OutputStream target;
+
+  // total bytes ever written by the producer / drained by the consumer
+  private volatile long tail;
+  private volatile long head;
+  private volatile boolean closed;
+  private volatile boolean writing;
+
+  private long droppedRecords;
+  private long droppedBytes;
+
+  /**
+   * Creates a ring buffer that is drained into target
+   *  by the agent's TraceFlusher thread.
+   * @param target    where drained bytes are written
+   * @param capacity  size of the ring in bytes
+   * @param block     true to wait for space when full,
+   *                  false to drop records that don't fit
+   */
+  RingBufferOutputStream(OutputStream target, int capacity, boolean block) {
+    this.target = target;
+    this.capacity = capacity;
+    this.buffer = new byte[capacity];
+    this.block = block;
+    this.tail = 0;
+    this.head = 0;
+    this.closed = false;
+    TraceFlusher.register(this);
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    write(new byte[] { (byte) b }, 0, 1);
+  }
+
+  /**
+   * Append one record. A record is either written whole
+   *  or (when dropping) not at all.
+   */
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    writing = true;
+    try {
+      append(b, off, len);
+    } finally {
+      writing = false;
+    }
+  }
+
+  private void append(byte[] b, int off, int len) {
+    // after setting writing, so close() either sees it or this sees closed
+    if (closed) {
+      droppedRecords++;
+      droppedBytes += len;
+      return;
+    }
+
+    if (len <= capacity - (tail - head)) {
+      put(b, off, len);
+      return;
+    }
+
+    if (!block) {
+      droppedRecords++;
+      droppedBytes += len;
+      return;
+    }
+
+    // wait for the flusher (or close(), which drains until this returns),
+    // records larger than the ring go in pieces
+    while (len > 0) {
+      long free = capacity - (tail - head);
+      if (free == 0) {
+        TraceFlusher.wakeup();
+        LockSupport.parkNanos(BLOCK_PARK_NANOS);
+        continue;
+      }
+      int chunk = (int) Math.min(len, free);
+      put(b, off, chunk);
+      off += chunk;
+      len -= chunk;
+    }
+  }
+
+  /**
+   * Copy bytes into the ring and publish them to the consumer.
+   */
+  private void put(byte[] b, int off, int len) {
+    long t = tail;
+    int pos = (int) (t % capacity);
+    int first = Math.min(len, capacity - pos);
+    System.arraycopy(b, off, buffer, pos, first);
+    System.arraycopy(b, off + first, buffer, 0, len - first);
+    tail = t + len;
+  }
+
+  /**
+   * Write everything published so far to the target
+   *  (consumer side, only called by one thread at a time).
+   * @return  number of bytes drained
+   */
+  int drain() throws IOException {
+    long h = head;
+    long t = tail;
+    if (t == h) {
+      return 0;
+    }
+
+    int len = (int) (t - h);
+    int pos = (int) (h % capacity);
+    int first = Math.min(len, capacity - pos);
+    target.write(buffer, pos, first);
+    if (len > first) {
+      target.write(buffer, 0, len - first);
+    }
+    head = t;
+    return len;
+  }
+
+  @Override
+  public void flush() {
+    TraceFlusher.wakeup();
+  }
+
+  /**
+   * Drain what's left and close the target, the
+   *  TraceFlusher must already be stopped. Waits for a
+   *  record being written, draining so a blocked producer
+   *  can finish it.
+   */
+  @Override
+  public void close() throws IOException {
+    closed = true;
+    while (writing) {
+      drain();
+      LockSupport.parkNanos(BLOCK_PARK_NANOS);
+    }
+    drain();
+    target.close();
+  }
+
+  long getDroppedRecords() {
+    return droppedRecords;
+  }
+
+  long getDroppedBytes() {
+    return droppedBytes;
+  }
+
+}
@@ -0,0 +1,80 @@
+package agent;
+
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.commons.CodeSizeEvaluator;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.MethodNode;
+
+/* Methods of instrumented classes that are left as they are, decided
+   once the method is buffered: by kind (see AgentConfig.skip) and by
+   bytecode size (AgentConfig.minSize). Name patterns are method rules
+   of the package list, see ClassFilter. */
+class SkipRules {
+
+  private static final String LAMBDA_PREFIX = "lambda$";
+  private static final String CLINIT = "<clinit>";
+
+  /**
+   * Check if a method should not be instrumented.
+   * @param method  buffered method
+   * @return  true if any skip rule matches it
+   */
+  static boolean matches(MethodNode method) {
+    if ((method.access & Opcodes.ACC_BRIDGE) != 0 && AgentConfig.isSkipping(AgentConfig.SKIP_BRIDGE)) {
+      return true;
+    }
+    if (method.name.startsWith(LAMBDA_PREFIX) && AgentConfig.isSkipping(AgentConfig.SKIP_LAMBDA)) {
+      return true;
+    }
+    if ((method.access & Opcodes.ACC_SYNTHETIC) != 0 && AgentConfig.isSkipping(AgentConfig.SKIP_SYNTHETIC)) {
+      return true;
+    }
+    if (method.name.equals(CLINIT) && AgentConfig.isSkipping(AgentConfig.SKIP_CLINIT)) {
+      return true;
+    }
+    if (AgentConfig.isSkipping(AgentConfig.SKIP_TRIVIAL) && isTrivial(method)) {
+      return true;
+    }
+    return AgentConfig.minSize > 0 && getCodeSize(method) < AgentConfig.minSize;
+  }
+
+  /**
+   * A trivial method is a leaf that runs straight through: no
+   *  calls, branches, exception handlers or locks, like most
+   *  getters and setters. Its cost is smaller than the probes'.
+   * @param method  buffered method
+   * @return  true if it is trivial
+   */
+  private static boolean isTrivial(MethodNode method) {
+    if (method.instructions.size() == 0 || !method.tryCatchBlocks.isEmpty()) {
+      return false;
+    }
+    for (AbstractInsnNode insn = method.instructions.getFirst(); insn != null; insn = insn.getNext()) {
+      switch (insn.getType()) {
+        case AbstractInsnNode.METHOD_INSN:
+        case AbstractInsnNode.INVOKE_DYNAMIC_INSN:
+        case AbstractInsnNode.JUMP_INSN:
+        case AbstractInsnNode.TABLESWITCH_INSN:
+        case AbstractInsnNode.LOOKUPSWITCH_INSN:
+          return false;
+        default:
+          int opcode = insn.getOpcode();
+          if (opcode == Opcodes.ATHROW || opcode == Opcodes.MONITORENTER || opcode == Opcodes.MONITOREXIT) {
+            return false;
+          }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @param method  buffered method
+   * @return  max size of its bytecode in bytes
+   */
+  private static int getCodeSize(MethodNode method) {
+    CodeSizeEvaluator evaluator = new CodeSizeEvaluator(null);
+    method.instructions.accept(evaluator);
+    return evaluator.getMaxSize();
+  }
+
+}
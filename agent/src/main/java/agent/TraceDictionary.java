@@ -0,0 +1,325 @@
+package agent;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/* Ids of source files, methods, local variables and call-sites, all
+   assigned at instrumentation time. In compact format each entry is
+   written once to dictionary.bin and trace events only carry the ids. */
+class TraceDictionary {
+
+  static final String FILE_NAME = "dictionary.bin";
+  static final byte[] MAGIC = { 'A', 'P', 'D', 'C' };
+  static final int VERSION = 1;
+
+  static final int FILE = 1;
+  static final int METHOD = 2;
+  static final int VARIABLE = 3;
+  static final int CALL_SITE = 4;
+
+  private static final int INITIAL_SIZE = 1024;
+
+  private static final Map<String, Integer> fileIds = new HashMap<>();
+  private static final Map<String, Integer> methodIds = new HashMap<>();
+
+  private static volatile String[] methods = new String[INITIAL_SIZE];
+  private static volatile MethodProtos.MethodCall.CallerInfo[] callSites =
+      new MethodProtos.MethodCall.CallerInfo[INITIAL_SIZE];
+  private static volatile LocalVariable[] variables = new LocalVariable[INITIAL_SIZE];
+  private static int methodCount = 0;
+  private static int variableCount = 0;
+  private static int callSiteCount = 0;
+
+  private static OutputStream out;
+  private static final CompactEncoder encoder = new CompactEncoder();
+
+  /**
+   * Start writing entries to the dictionary file of a trace
+   *  directory (compact format only).
+   * @param dir  trace output directory
+   */
+  static synchronized void open(String dir) throws IOException {
+    File file = new File(dir, FILE_NAME);
+    file.getParentFile().mkdirs();
+    out = new BufferedOutputStream(new FileOutputStream(file));
+    encoder.reset();
+    encoder.writeBytes(MAGIC);
+    encoder.writeVarint(VERSION);
+    flushEntry();
+  }
+
+  /**
+   * Write entries registered so far to disk, called
+   *  after each transformed class.
+   */
+  static synchronized void flush() {
+    if (out != null) {
+      try {
+        out.flush();
+      } catch (IOException e) {
+        System.out.println("ERROR : " + e);
+      }
+    }
+  }
+
+  static synchronized void close() {
+    if (out != null) {
+      try {
+        out.close();
+      } catch (IOException e) {
+        System.out.println("ERROR : " + e);
+      }
+      out = null;
+    }
+  }
+
+  /**
+   * Start handing out ids at the given counts, above
+   *  the ids used by cached classes.
+   * @param methodId    first method id
+   * @param variableId  first variable id
+   * @param callSiteId  first call-site id
+   */
+  static synchronized void start(int methodId, int variableId, int callSiteId) {
+    methodCount = methodId;
+    variableCount = variableId;
+    callSiteCount = callSiteId;
+  }
+
+  /**
+   * Get the next method, variable and call-site ids.
+   * @return  counts of each kind of id
+   */
+  static synchronized int[] getCounts() {
+    return new int[] { methodCount, variableCount, callSiteCount };
+  }
+
+  /**
+   * Claim the ids of a cached class and register what they
+   *  stand for again, unless one of them is already in use.
+   * @param entry  registrations of the cached class
+   * @return  true if all ids were claimed
+   */
+  static synchronized boolean restore(ClassCache.Entry entry) {
+    for (ClassCache.Entry.Method method : entry.methods) {
+      String current = getMethodOrNull(method.id);
+      if (current != null && !current.equals(method.signature)) {
+        return false;
+      }
+      if (method.locals != null) {
+        for (LocalVariable local : method.locals) {
+          if (getVariable(local.id) != null) {
+            return false;
+          }
+        }
+      }
+    }
+    for (ClassCache.Entry.CallSite callSite : entry.callSites) {
+      if (getCallSite(callSite.id) != null) {
+        return false;
+      }
+    }
+
+    for (ClassCache.Entry.Method method : entry.methods) {
+      if (getMethodOrNull(method.id) == null) {
+        putMethod(method.id, method.signature);
+      }
+      if (method.locals != null) {
+        for (LocalVariable local : method.locals) {
+          putVariable(local.id, method.id, local);
+        }
+      }
+    }
+    for (ClassCache.Entry.CallSite callSite : entry.callSites) {
+      putCallSite(callSite.id, callSite.filename, callSite.linenum);
+    }
+    return true;
+  }
+
+  /**
+   * Get the id of a method, registering it the first time.
+   * @param signature  full method signature
+   * @return  id of the method
+   */
+  static synchronized int registerMethod(String signature) {
+    Integer id = methodIds.get(signature);
+    if (id != null) {
+      return id;
+    }
+
+    // skip ids claimed by cached classes
+    while (getMethodOrNull(methodCount) != null) {
+      methodCount++;
+    }
+    putMethod(methodCount, signature);
+    return methodCount++;
+  }
+
+  /**
+   * Register a local variable of a method.
+   * @param methodId  id of the method
+   * @param local     local variable metadata
+   * @return  id of the variable
+   */
+  static synchronized int registerVariable(int methodId, LocalVariable local) {
+    while (getVariable(variableCount) != null) {
+      variableCount++;
+    }
+    putVariable(variableCount, methodId, local);
+    return variableCount++;
+  }
+
+  /**
+   * Register a call-site found while transforming a class.
+   * @param filename  source file of the calling class
+   * @param linenum   line number of the invoke instruction
+   * @return  id of the call-site
+   */
+  static synchronized int registerCallSite(String filename, int linenum) {
+    while (getCallSite(callSiteCount) != null) {
+      callSiteCount++;
+    }
+    putCallSite(callSiteCount, filename, linenum);
+    return callSiteCount++;
+  }
+
+  private static void putMethod(int id, String signature) {
+    String[] table = methods;
+    if (id >= table.length) {
+      table = Arrays.copyOf(table, Math.max(table.length * 2, id + 1));
+    }
+    table[id] = signature;
+    methods = table;
+    if (!methodIds.containsKey(signature)) {
+      methodIds.put(signature, id);
+    }
+
+    encoder.reset();
+    encoder.writeVarint(METHOD);
+    encoder.writeVarint(id);
+    encoder.writeString(signature);
+    flushEntry();
+  }
+
+  private static void putVariable(int id, int methodId, LocalVariable local) {
+    LocalVariable[] table = variables;
+    if (id >= table.length) {
+      table = Arrays.copyOf(table, Math.max(table.length * 2, id + 1));
+    }
+    table[id] = local;
+    variables = table;
+
+    encoder.reset();
+    encoder.writeVarint(VARIABLE);
+    encoder.writeVarint(id);
+    encoder.writeVarint(methodId);
+    encoder.writeVarint(local.index);
+    encoder.writeString(local.name);
+    encoder.writeString(local.desc);
+    flushEntry();
+  }
+
+  private static void putCallSite(int id, String filename, int linenum) {
+    if (filename == null) {
+      filename = "";
+    }
+
+    MethodProtos.MethodCall.CallerInfo[] table = callSites;
+    if (id >= table.length) {
+      table = Arrays.copyOf(table, Math.max(table.length * 2, id + 1));
+    }
+    table[id] = MethodProtos.MethodCall.CallerInfo.newBuilder()
+        .setFilename(filename)
+        .setLinenum(linenum)
+        .build();
+    callSites = table;
+
+    int fileId = registerFile(filename);
+    encoder.reset();
+    encoder.writeVarint(CALL_SITE);
+    encoder.writeVarint(id);
+    encoder.writeVarint(fileId);
+    encoder.writeVarint(linenum);
+    flushEntry();
+  }
+
+  /**
+   * Get the id of a source file, registering it the first time.
+   * @param filename  source file
+   * @return  id of the file
+   */
+  private static int registerFile(String filename) {
+    Integer id = fileIds.get(filename);
+    if (id != null) {
+      return id;
+    }
+
+    id = fileIds.size();
+    fileIds.put(filename, id);
+
+    encoder.reset();
+    encoder.writeVarint(FILE);
+    encoder.writeVarint(id);
+    encoder.writeString(filename);
+    flushEntry();
+
+    return id;
+  }
+
+  /**
+   * Append the encoded entry to the dictionary file (if open).
+   */
+  private static void flushEntry() {
+    if (out != null) {
+      try {
+        encoder.writeTo(out);
+      } catch (IOException e) {
+        System.out.println("ERROR : " + e);
+      }
+    }
+  }
+
+  /**
+   * Get the signature of a registered method.
+   * @param id  method id
+   * @return  full method signature
+   */
+  static String getMethod(int id) {
+    return methods[id];
+  }
+
+  private static String getMethodOrNull(int id) {
+    String[] table = methods;
+    return id < table.length ? table[id] : null;
+  }
+
+  /**
+   * Get a registered local variable.
+   * @param id  variable id
+   * @return  local variable or null if there is none
+   */
+  static LocalVariable getVariable(int id) {
+    LocalVariable[] table = variables;
+    return id < table.length ? table[id] : null;
+  }
+
+  /**
+   * Get caller info for a registered call-site.
+   * @param id  call-site id (or -1 if unknown)
+   * @return  caller info or null if there is none
+   */
+  static MethodProtos.MethodCall.CallerInfo getCallSite(int id) {
+    MethodProtos.MethodCall.CallerInfo[] table = callSites;
+    if (id < 0 || id >= table.length) {
+      return null;
+    }
+    return table[id];
+  }
+
+}
@@ -0,0 +1,97 @@
+package agent;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/* The one agent-owned thread that drains every RingBufferOutputStream
+   to disk, so recording threads never wait on file I/O. */
+class TraceFlusher extends Thread {
+
+  private static final List<RingBufferOutputStream> buffers = new CopyOnWriteArrayList<>();
+  private static volatile TraceFlusher flusher;
+  private static boolean stopped = false;
+
+  private final long intervalNanos;
+  private volatile boolean running;
+
+  private TraceFlusher(long intervalMillis) {
+    super("asm-profiler-flusher");
+    setDaemon(true);
+    this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMillis);
+    this.running = true;
+  }
+
+  /**
+   * Add a buffer to be drained, starting the flusher
+   *  thread with the first one.
+   * @param buffer  ring buffer of a recording thread
+   */
+  static synchronized void register(RingBufferOutputStream buffer) {
+    buffers.add(buffer);
+    if (flusher == null && !stopped) {
+      flusher = new TraceFlusher(AgentConfig.flushInterval);
+      flusher.start();
+    }
+  }
+
+  /**
+   * Ask the flusher to drain now instead of at its next interval.
+   */
+  static void wakeup() {
+    TraceFlusher f = flusher;
+    if (f != null) {
+      LockSupport.unpark(f);
+    }
+  }
+
+  /**
+   * Stop the flusher thread and wait for its last drain,
+   *  after this buffers may be drained by the caller.
+   */
+  static synchronized void shutdown() {
+    stopped = true;
+    if (flusher != null) {
+      flusher.running = false;
+      LockSupport.unpark(flusher);
+      try {
+        flusher.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /**
+   * Report records that were dropped because a ring was full.
+   */
+  static void reportDropped() {
+    for (RingBufferOutputStream buffer : buffers) {
+      if (buffer.getDroppedRecords() > 0) {
+        System.err.println("Warning: Trace buffer full, dropped "
+            + buffer.getDroppedRecords() + " record(s) / "
+            + buffer.getDroppedBytes() + " byte(s)...");
+      }
+    }
+  }
+
+  @Override
+  public void run() {
+    while (running) {
+      int drained = 0;
+      for (RingBufferOutputStream buffer : buffers) {
+        try {
+          drained += buffer.drain();
+        } catch (IOException e) {
+          System.out.println("ERROR : " + e);
+        }
+      }
+      if (drained == 0) {
+        LockSupport.parkNanos(this, intervalNanos);
+      }
+    }
+  }
+
+}
@@ -0,0 +1,240 @@
+package agent;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+public class TraceReader {
+
+  public static final String EVENTS_SUFFIX = ".events";
+  public static final String COMPACT_SUFFIX = ".trace";
+
+  /* Events of one thread, next() returns null after the last one. */
+  interface EventSource {
+    MethodProtos.TraceEvent next() throws IOException;
+  }
+
+  /**
+   * Prints the call trees of one or more trace files.
+   *
+   * @param args  paths of thread_N.txt (tree mode),
+   *              thread_N.events (stream mode) or
+   *              thread_N.trace (compact stream mode) files
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length == 0) {
+      System.err.println("Usage: TraceReader <TRACE_FILE> [<TRACE_FILE> ...]");
+      return;
+    }
+
+    for (String fileName : args) {
+      System.out.println("==> " + fileName);
+      for (MethodProtos.MethodCall root : read(fileName)) {
+        print(root, "", System.out);
+      }
+    }
+  }
+
+  /**
+   * Read the call trees of a trace file.
+   * @param fileName  trace file
+   * @return  root calls in the order they were entered
+   */
+  public static List<MethodProtos.MethodCall> read(String fileName) throws IOException {
+    Path path = Paths.get(fileName);
+    InputStream in = openData(Files.readAllBytes(path));
+    if (fileName.endsWith(EVENTS_SUFFIX)) {
+      return readEvents(in);
+    }
+    if (fileName.endsWith(COMPACT_SUFFIX)) {
+      Path dictionary = path.resolveSibling(TraceDictionary.FILE_NAME);
+      return buildTrees(new CompactTraceReader(dictionary).events(in));
+    }
+    return readTrees(in);
+  }
+
+  /**
+   * Read the length-prefixed call trees written in tree mode.
+   * @param in  trace data
+   * @return  root calls in the order they returned
+   */
+  public static List<MethodProtos.MethodCall> readTrees(InputStream in) throws IOException {
+    List<MethodProtos.MethodCall> roots = new ArrayList<>();
+    while (true) {
+      MethodProtos.MethodCall root;
+      try {
+        root = MethodProtos.MethodCall.parseDelimitedFrom(in);
+      } catch (InvalidProtocolBufferException | EOFException e) {
+        System.err.println("Warning: Truncated call tree, " + e.getMessage());
+        break;
+      }
+      if (root == null) {
+        break;
+      }
+      roots.add(root);
+    }
+    return roots;
+  }
+
+  /**
+   * Get the trace data of a file, skipping the header of
+   *  memory-mapped files and anything past their last
+   *  committed record.
+   * @param bytes  contents of a trace file
+   * @return  trace data
+   */
+  private static InputStream openData(byte[] bytes) {
+    ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    if (bytes.length >= MappedOutputStream.HEADER_SIZE
+        && buffer.getInt(0) == MappedOutputStream.MAGIC) {
+      long committed = Math.min(buffer.getLong(MappedOutputStream.POSITION_OFFSET), bytes.length);
+      return new ByteArrayInputStream(
+          bytes,
+          MappedOutputStream.HEADER_SIZE,
+          (int) committed - MappedOutputStream.HEADER_SIZE
+      );
+    }
+    return new ByteArrayInputStream(bytes);
+  }
+
+  /**
+   * Rebuild call trees from a stream of delimited events.
+   *  Calls that never returned (the thread was still running,
+   *  or the JVM died) are kept with a duration of 0.
+   * @param in  event stream
+   * @return  root calls in the order they were entered
+   */
+  public static List<MethodProtos.MethodCall> readEvents(final InputStream in) throws IOException {
+    return buildTrees(new EventSource() {
+      @Override
+      public MethodProtos.TraceEvent next() throws IOException {
+        return MethodProtos.TraceEvent.parseDelimitedFrom(in);
+      }
+    });
+  }
+
+  /**
+   * Rebuild call trees from the events of one thread.
+   * @param events  event source
+   * @return  root calls in the order they were entered
+   */
+  static List<MethodProtos.MethodCall> buildTrees(EventSource events) throws IOException {
+    List<MethodProtos.MethodCall> roots = new ArrayList<>();
+    Deque<MethodProtos.MethodCall.Builder> stack = new ArrayDeque<>();
+
+    while (true) {
+      MethodProtos.TraceEvent event;
+      try {
+        event = events.next();
+      } catch (InvalidProtocolBufferException | EOFException e) {
+        System.err.println("Warning: Truncated event stream, " + e.getMessage());
+        break;
+      }
+      if (event == null) {
+        break;
+      }
+
+      switch (event.getType()) {
+        case METHOD_ENTER:
+          enter(event.getCall(), stack);
+          break;
+        case METHOD_EXIT:
+          if (stack.isEmpty()) {
+            System.err.println("Warning: Exit event without a matching enter...");
+            break;
+          }
+          MethodProtos.MethodCall.Builder last = stack.pop()
+              .setDuration(event.getDuration())
+              .setReturnValue(event.getReturnValue())
+              .setException(event.getException());
+          if (stack.isEmpty()) {
+            roots.add(last.build());
+          }
+          break;
+        case INSTRUCTION:
+          if (!stack.isEmpty()) {
+            stack.peek().addInstructions(event.getInstruction());
+          }
+          break;
+        default:
+          break;
+      }
+    }
+
+    if (!stack.isEmpty()) {
+      roots.add(stack.getLast().build());
+    }
+    return roots;
+  }
+
+  /**
+   * Attach an entered call to its parent (top of stack), the
+   *  same way ProfileLogger builds the tree in tree mode.
+   * @param call   entered call
+   * @param stack  calls that have not returned yet
+   */
+  private static void enter(MethodProtos.MethodCall call, Deque<MethodProtos.MethodCall.Builder> stack) {
+    MethodProtos.MethodCall.Builder node;
+
+    if (stack.isEmpty()) {
+      node = call.toBuilder();
+    } else {
+      MethodProtos.MethodCall.Builder parent = stack.peek();
+      parent.addInstructions(
+          MethodProtos.MethodCall.Instruction.newBuilder()
+              .setType(MethodProtos.MethodCall.InstructionType.METHOD_CALL)
+              .setLinenum(call.getCaller().getLinenum())
+              .setCallSignature(call.getSignature())
+              .build()
+      );
+      node = parent.addCallsBuilder().mergeFrom(call);
+    }
+
+    // a started Thread never returns in this thread
+    if (call.getType() != MethodProtos.MethodCall.MethodCallType.THREAD_START) {
+      stack.push(node);
+    }
+  }
+
+  /**
+   * Print a call tree with its instructions.
+   * @param call    call to print
+   * @param indent  indentation of this call
+   * @param out     where to print
+   */
+  public static void print(MethodProtos.MethodCall call, String indent, PrintStream out) {
+    out.println(indent + call.getSignature()
+        + " params=" + call.getParamValuesList()
+        + " return=" + call.getReturnValue()
+        + " duration=" + call.getDuration()
+        + (!call.getException().isEmpty() ? " threw=" + call.getException() : "")
+        + (call.hasCaller() ? " caller=" + call.getCaller().getFilename() + ":" + call.getCaller().getLinenum() : "")
+        + (call.getType() == MethodProtos.MethodCall.MethodCallType.THREAD_START ? " thread=" + call.getNewThreadId() : ""));
+
+    for (MethodProtos.MethodCall.Instruction insn : call.getInstructionsList()) {
+      if (insn.getType() == MethodProtos.MethodCall.InstructionType.METHOD_CALL) {
+        out.println(indent + "  | " + insn.getLinenum() + ": CALL " + insn.getCallSignature());
+      } else {
+        out.println(indent + "  | " + insn.getLinenum() + ": " + insn.getType()
+            + " " + insn.getVariable().getName() + " = " + ValueFormatter.format(insn));
+      }
+    }
+
+    for (MethodProtos.MethodCall child : call.getCallsList()) {
+      print(child, indent + "    ", out);
+    }
+  }
+
+}
@@ -0,0 +1,89 @@
+package agent;
+
+import java.lang.management.ManagementFactory;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/* Global switch of the injected probes. Each instrumented call reads the
+   flag once on entry (through ProfileLogger.getInstance()); while it is
+   off the call gets an inert logger, whose sampleMethodStart() fails, so
+   no timestamp is taken and its line and local probes return right away.
+   That leaves a few calls per probe, not nothing: the probes are still
+   in the code until the agent detaches. Calls entered while it was on
+   are still logged when they exit, so the shadow stacks stay balanced
+   when it flips. */
+public class Tracing implements TracingMBean {
+
+  static final String OBJECT_NAME = "agent:type=Tracing";
+
+  static volatile boolean enabled = true;
+
+  private static Timer timer;
+  private static TimerTask pending;
+
+  /**
+   * Register the switch with the platform MBean server.
+   */
+  static void registerMBean() {
+    try {
+      ManagementFactory.getPlatformMBeanServer().registerMBean(new Tracing(), new ObjectName(OBJECT_NAME));
+    } catch (JMException e) {
+      System.err.println("Error: Could not register " + OBJECT_NAME + ", " + e.getMessage());
+    }
+  }
+
+  /**
+   * Turn tracing on or off, cancelling a pending enableFor().
+   * @param on  true to trace
+   */
+  static synchronized void set(boolean on) {
+    if (pending != null) {
+      pending.cancel();
+      pending = null;
+    }
+    enabled = on;
+  }
+
+  /**
+   * Turn tracing on, and off again after a while.
+   * @param seconds  how long to trace for
+   */
+  static synchronized void setFor(long seconds) {
+    set(true);
+    if (timer == null) {
+      timer = new Timer("asm-profiler-tracing", true);
+    }
+    pending = new TimerTask() {
+      @Override
+      public void run() {
+        synchronized (Tracing.class) {
+          if (pending == this) {
+            pending = null;
+            enabled = false;
+          }
+        }
+      }
+    };
+    timer.schedule(pending, TimeUnit.SECONDS.toMillis(seconds));
+  }
+
+  @Override
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  @Override
+  public void setEnabled(boolean enabled) {
+    set(enabled);
+  }
+
+  @Override
+  public void enableFor(long seconds) {
+    setFor(seconds);
+  }
+
+}
@@ -0,0 +1,16 @@
+package agent;
+
+/* JMX view of Tracing, registered as agent:type=Tracing. */
+public interface TracingMBean {
+
+  boolean isEnabled();
+
+  void setEnabled(boolean enabled);
+
+  /**
+   * Enable tracing, and disable it again after a while.
+   * @param seconds  how long to trace for
+   */
+  void enableFor(long seconds);
+
+}
@@ -0,0 +1,32 @@
+package agent;
+
+public class ValueFormatter {
+
+  /**
+   * Format the value of a READ/WRITE instruction. Primitive
+   *  values are recorded raw and only turned into text here,
+   *  based on the type descriptor of the variable.
+   * @param insn  instruction to format
+   * @return  value as text
+   */
+  public static String format(MethodProtos.MethodCall.Instruction insn) {
+    switch (insn.getVariable().getType()) {
+      case "Z":                               // boolean
+        return String.valueOf(insn.getLongValue() != 0);
+      case "C":                               // char
+        return String.valueOf((char) insn.getLongValue());
+      case "B":                               // byte
+      case "S":                               // short
+      case "I":                               // int
+      case "J":                               // long
+        return String.valueOf(insn.getLongValue());
+      case "F":                               // float
+        return String.valueOf((float) insn.getDoubleValue());
+      case "D":                               // double
+        return String.valueOf(insn.getDoubleValue());
+      default:                                // array / type ref
+        return insn.getValue();
+    }
+  }
+
+}